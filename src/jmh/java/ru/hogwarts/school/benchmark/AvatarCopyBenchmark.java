@@ -0,0 +1,83 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import ru.hogwarts.school.service.AvatarStore;
+import ru.hogwarts.school.service.FileSystemAvatarStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AvatarCopyBenchmark {
+
+    @Param({"4KB", "64KB"})
+    private String bufferSize;
+
+    @Param({"300"})
+    private int avatarKilobytes;
+
+    private Path root;
+    private byte[] avatar;
+    private AvatarStore avatarStore;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("avatar-copy-benchmark");
+        avatar = new byte[avatarKilobytes * 1024];
+        new Random(42).nextBytes(avatar);
+        avatar[0] = (byte) 0x89;
+        avatar[1] = 'P';
+        avatar[2] = 'N';
+        avatar[3] = 'G';
+        avatarStore = new FileSystemAvatarStore(root.toString(), DataSize.parse(bufferSize), 16);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public long avatarStore() throws IOException {
+        AvatarStore.StoredAvatar stored = avatarStore.store(new ByteArrayInputStream(avatar), "png");
+        avatarStore.delete(stored.location());
+        return stored.size();
+    }
+
+    @Benchmark
+    public long legacyBufferedCopy() throws IOException {
+        Path filePath = root.resolve("legacy.png");
+        long copied;
+        try (InputStream is = new ByteArrayInputStream(avatar);
+             OutputStream os = Files.newOutputStream(filePath, CREATE_NEW);
+             BufferedInputStream bis = new BufferedInputStream(is, 1024);
+             BufferedOutputStream bos = new BufferedOutputStream(os, 1024)
+        ) {
+            copied = bis.transferTo(bos);
+        }
+        Files.delete(filePath);
+        return copied;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.hogwarts.school.DTO.FacultyDTO;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.FacultyService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FacultyServiceBenchmark {
+
+    @Param({"10", "1000"})
+    private int students;
+
+    private FacultyService facultyService;
+    private Faculty faculty;
+
+    @Setup
+    public void setUp() {
+        facultyService = new FacultyService(null);
+        faculty = new Faculty(1L, "Гриффиндор", "Красный");
+        List<Student> roster = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            roster.add(new Student(i + 1, "Student " + i, 17 + i % 5));
+        }
+        faculty.setStudents(roster);
+    }
+
+    @Benchmark
+    public FacultyDTO convertToDto() {
+        return facultyService.convertToDto(faculty);
+    }
+}
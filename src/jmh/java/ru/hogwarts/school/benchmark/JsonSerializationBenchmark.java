@@ -0,0 +1,62 @@
+package ru.hogwarts.school.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.hogwarts.school.DTO.FacultyDTO;
+import ru.hogwarts.school.DTO.StudentDTO;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Student student;
+    private FacultyDTO faculty;
+    private Avatar avatar;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        student = new Student(1L, "Гарри Поттер", 17);
+
+        faculty = new FacultyDTO(1L, "Гриффиндор", "Красный");
+        List<StudentDTO> students = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            students.add(new StudentDTO((long) i, "Student " + i, 17 + i % 5));
+        }
+        faculty.setStudents(students);
+
+        avatar = new Avatar(1L, "/avatars/ab/abcdef.png", "image/png", 204_800L, student);
+        avatar.setContentHash("abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789");
+    }
+
+    @Benchmark
+    public byte[] student() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(student);
+    }
+
+    @Benchmark
+    public byte[] facultyWithStudents() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(faculty);
+    }
+
+    @Benchmark
+    public byte[] avatar() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(avatar);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.hogwarts.school.DTO.StudentDTO;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.SingleFlightRegistry;
+import ru.hogwarts.school.service.StudentNameIndex;
+import ru.hogwarts.school.service.StudentService;
+import ru.hogwarts.school.service.StudentStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StudentServiceBenchmark {
+
+    private static final String[] FIRST_LETTERS = {"A", "А", "B", "Г", "H", "Р", "S", "Л"};
+
+    @Param({"1000", "100000"})
+    private int students;
+
+    private List<Student> roster;
+    private StudentService studentService;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StudentStatistics statistics = new StudentStatistics(null);
+        StudentNameIndex nameIndex = new StudentNameIndex(null);
+        roster = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            Student student = new Student(i + 1, FIRST_LETTERS[random.nextInt(FIRST_LETTERS.length)] + "student" + i, 17 + random.nextInt(10));
+            roster.add(student);
+            statistics.onAdded(student.getAge());
+            nameIndex.onSaved(student.getId(), student.getName(), student.getAge());
+        }
+        studentService = new StudentService(null, statistics, nameIndex, null, new SingleFlightRegistry());
+    }
+
+    @Benchmark
+    public double averageAgeFromStatistics() {
+        return studentService.getAverageAge2();
+    }
+
+    @Benchmark
+    public double averageAgeFullScan() {
+        return roster.stream()
+                .mapToInt(Student::getAge)
+                .average()
+                .orElse(0.0);
+    }
+
+    @Benchmark
+    public List<StudentDTO> namesStartingWithAFromIndex() {
+        return studentService.findByNamePrefix("A", Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Student> namesStartingWithAFullScan() {
+        return roster.stream()
+                .filter(student -> student.getName().startsWith("A") || student.getName().startsWith("А"))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,73 @@
+package ru.hogwarts.school.DTO;
+
+import java.util.Objects;
+
+public class AvatarDTO {
+    private Long id;
+    private Long studentId;
+    private String mediaType;
+    private long fileSize;
+    private String url;
+
+    public AvatarDTO() {}
+
+    public AvatarDTO(Long id, Long studentId, String mediaType, long fileSize) {
+        this.id = id;
+        this.studentId = studentId;
+        this.mediaType = mediaType;
+        this.fileSize = fileSize;
+        this.url = "/student/" + studentId + "/avatar";
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(Long studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public void setMediaType(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        AvatarDTO that = (AvatarDTO) o;
+        return fileSize == that.fileSize && Objects.equals(id, that.id) && Objects.equals(studentId, that.studentId) && Objects.equals(mediaType, that.mediaType) && Objects.equals(url, that.url);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, studentId, mediaType, fileSize, url);
+    }
+}
@@ -0,0 +1,45 @@
+package ru.hogwarts.school.DTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class BatchResult<T> {
+    private Map<Long, T> found;
+    private List<Long> notFound;
+
+    public BatchResult() {}
+
+    public BatchResult(Map<Long, T> found, List<Long> notFound) {
+        this.found = found;
+        this.notFound = notFound;
+    }
+
+    public Map<Long, T> getFound() {
+        return found;
+    }
+
+    public void setFound(Map<Long, T> found) {
+        this.found = found;
+    }
+
+    public List<Long> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<Long> notFound) {
+        this.notFound = notFound;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchResult<?> that = (BatchResult<?>) o;
+        return Objects.equals(found, that.found) && Objects.equals(notFound, that.notFound);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(found, notFound);
+    }
+}
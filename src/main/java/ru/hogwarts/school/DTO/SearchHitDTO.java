@@ -0,0 +1,43 @@
+package ru.hogwarts.school.DTO;
+
+import java.util.Objects;
+
+public class SearchHitDTO<T> {
+    private T item;
+    private double score;
+
+    public SearchHitDTO() {}
+
+    public SearchHitDTO(T item, double score) {
+        this.item = item;
+        this.score = score;
+    }
+
+    public T getItem() {
+        return item;
+    }
+
+    public void setItem(T item) {
+        this.item = item;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        SearchHitDTO<?> that = (SearchHitDTO<?>) o;
+        return Double.compare(score, that.score) == 0 && Objects.equals(item, that.item);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(item, score);
+    }
+}
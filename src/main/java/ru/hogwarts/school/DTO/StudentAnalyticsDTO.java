@@ -0,0 +1,270 @@
+package ru.hogwarts.school.DTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class StudentAnalyticsDTO {
+    private long count;
+    private AgeSummary age;
+    private NameLengthSummary nameLength;
+    private Map<Integer, Long> ageDistribution;
+    private List<FacultySummary> faculties;
+
+    public StudentAnalyticsDTO() {}
+
+    public StudentAnalyticsDTO(long count, AgeSummary age, NameLengthSummary nameLength,
+                               Map<Integer, Long> ageDistribution, List<FacultySummary> faculties) {
+        this.count = count;
+        this.age = age;
+        this.nameLength = nameLength;
+        this.ageDistribution = ageDistribution;
+        this.faculties = faculties;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public AgeSummary getAge() {
+        return age;
+    }
+
+    public void setAge(AgeSummary age) {
+        this.age = age;
+    }
+
+    public NameLengthSummary getNameLength() {
+        return nameLength;
+    }
+
+    public void setNameLength(NameLengthSummary nameLength) {
+        this.nameLength = nameLength;
+    }
+
+    public Map<Integer, Long> getAgeDistribution() {
+        return ageDistribution;
+    }
+
+    public void setAgeDistribution(Map<Integer, Long> ageDistribution) {
+        this.ageDistribution = ageDistribution;
+    }
+
+    public List<FacultySummary> getFaculties() {
+        return faculties;
+    }
+
+    public void setFaculties(List<FacultySummary> faculties) {
+        this.faculties = faculties;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        StudentAnalyticsDTO that = (StudentAnalyticsDTO) o;
+        return count == that.count && Objects.equals(age, that.age) && Objects.equals(nameLength, that.nameLength)
+                && Objects.equals(ageDistribution, that.ageDistribution) && Objects.equals(faculties, that.faculties);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, age, nameLength, ageDistribution, faculties);
+    }
+
+    public static class AgeSummary {
+        private long count;
+        private double average;
+        private Integer min;
+        private Integer max;
+        private Integer p50;
+        private Integer p90;
+        private Integer p99;
+
+        public AgeSummary() {}
+
+        public AgeSummary(long count, double average, Integer min, Integer max, Integer p50, Integer p90, Integer p99) {
+            this.count = count;
+            this.average = average;
+            this.min = min;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public double getAverage() {
+            return average;
+        }
+
+        public void setAverage(double average) {
+            this.average = average;
+        }
+
+        public Integer getMin() {
+            return min;
+        }
+
+        public void setMin(Integer min) {
+            this.min = min;
+        }
+
+        public Integer getMax() {
+            return max;
+        }
+
+        public void setMax(Integer max) {
+            this.max = max;
+        }
+
+        public Integer getP50() {
+            return p50;
+        }
+
+        public void setP50(Integer p50) {
+            this.p50 = p50;
+        }
+
+        public Integer getP90() {
+            return p90;
+        }
+
+        public void setP90(Integer p90) {
+            this.p90 = p90;
+        }
+
+        public Integer getP99() {
+            return p99;
+        }
+
+        public void setP99(Integer p99) {
+            this.p99 = p99;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == null || getClass() != o.getClass()) return false;
+            AgeSummary that = (AgeSummary) o;
+            return count == that.count && Double.compare(average, that.average) == 0 && Objects.equals(min, that.min)
+                    && Objects.equals(max, that.max) && Objects.equals(p50, that.p50) && Objects.equals(p90, that.p90)
+                    && Objects.equals(p99, that.p99);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, average, min, max, p50, p90, p99);
+        }
+    }
+
+    public static class NameLengthSummary {
+        private double average;
+        private Integer min;
+        private Integer max;
+
+        public NameLengthSummary() {}
+
+        public NameLengthSummary(double average, Integer min, Integer max) {
+            this.average = average;
+            this.min = min;
+            this.max = max;
+        }
+
+        public double getAverage() {
+            return average;
+        }
+
+        public void setAverage(double average) {
+            this.average = average;
+        }
+
+        public Integer getMin() {
+            return min;
+        }
+
+        public void setMin(Integer min) {
+            this.min = min;
+        }
+
+        public Integer getMax() {
+            return max;
+        }
+
+        public void setMax(Integer max) {
+            this.max = max;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == null || getClass() != o.getClass()) return false;
+            NameLengthSummary that = (NameLengthSummary) o;
+            return Double.compare(average, that.average) == 0 && Objects.equals(min, that.min) && Objects.equals(max, that.max);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(average, min, max);
+        }
+    }
+
+    public static class FacultySummary {
+        private Long facultyId;
+        private String facultyName;
+        private AgeSummary age;
+
+        public FacultySummary() {}
+
+        public FacultySummary(Long facultyId, String facultyName, AgeSummary age) {
+            this.facultyId = facultyId;
+            this.facultyName = facultyName;
+            this.age = age;
+        }
+
+        public Long getFacultyId() {
+            return facultyId;
+        }
+
+        public void setFacultyId(Long facultyId) {
+            this.facultyId = facultyId;
+        }
+
+        public String getFacultyName() {
+            return facultyName;
+        }
+
+        public void setFacultyName(String facultyName) {
+            this.facultyName = facultyName;
+        }
+
+        public AgeSummary getAge() {
+            return age;
+        }
+
+        public void setAge(AgeSummary age) {
+            this.age = age;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == null || getClass() != o.getClass()) return false;
+            FacultySummary that = (FacultySummary) o;
+            return Objects.equals(facultyId, that.facultyId) && Objects.equals(facultyName, that.facultyName)
+                    && Objects.equals(age, that.age);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(facultyId, facultyName, age);
+        }
+    }
+}
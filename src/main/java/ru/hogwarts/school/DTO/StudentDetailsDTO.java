@@ -0,0 +1,67 @@
+package ru.hogwarts.school.DTO;
+
+import java.util.Objects;
+
+public class StudentDetailsDTO {
+    private Long id;
+    private String name;
+    private int age;
+    private FacultyDTO faculty;
+
+    public StudentDetailsDTO() {}
+
+    public StudentDetailsDTO(Long id, String name, int age, FacultyDTO faculty) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+        this.faculty = faculty;
+    }
+
+    public StudentDetailsDTO(Long id, String name, int age, Long facultyId, String facultyName, String facultyColor) {
+        this(id, name, age, facultyId == null ? null : new FacultyDTO(facultyId, facultyName, facultyColor));
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+
+    public FacultyDTO getFaculty() {
+        return faculty;
+    }
+
+    public void setFaculty(FacultyDTO faculty) {
+        this.faculty = faculty;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        StudentDetailsDTO that = (StudentDetailsDTO) o;
+        return age == that.age && Objects.equals(id, that.id) && Objects.equals(name, that.name) && Objects.equals(faculty, that.faculty);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, age, faculty);
+    }
+}
@@ -0,0 +1,67 @@
+package ru.hogwarts.school.DTO;
+
+import java.util.Objects;
+
+public class StudentExportRow {
+    private Long id;
+    private String name;
+    private int age;
+    private String facultyName;
+
+    public StudentExportRow() {}
+
+    public StudentExportRow(Long id, String name, int age) {
+        this(id, name, age, null);
+    }
+
+    public StudentExportRow(Long id, String name, int age, String facultyName) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+        this.facultyName = facultyName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+
+    public String getFacultyName() {
+        return facultyName;
+    }
+
+    public void setFacultyName(String facultyName) {
+        this.facultyName = facultyName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        StudentExportRow that = (StudentExportRow) o;
+        return age == that.age && Objects.equals(id, that.id) && Objects.equals(name, that.name) && Objects.equals(facultyName, that.facultyName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, age, facultyName);
+    }
+}
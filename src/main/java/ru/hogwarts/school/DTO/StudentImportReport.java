@@ -0,0 +1,98 @@
+package ru.hogwarts.school.DTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class StudentImportReport {
+    private int imported;
+    private int failed;
+    private List<RowFailure> failures = new ArrayList<>();
+
+    public StudentImportReport() {}
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public void addFailure(long line, String message) {
+        failed++;
+        failures.add(new RowFailure(line, message));
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<RowFailure> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<RowFailure> failures) {
+        this.failures = failures;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        StudentImportReport that = (StudentImportReport) o;
+        return imported == that.imported && failed == that.failed && Objects.equals(failures, that.failures);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(imported, failed, failures);
+    }
+
+    public static class RowFailure {
+        private long line;
+        private String message;
+
+        public RowFailure() {}
+
+        public RowFailure(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public void setLine(long line) {
+            this.line = line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == null || getClass() != o.getClass()) return false;
+            RowFailure that = (RowFailure) o;
+            return line == that.line && Objects.equals(message, that.message);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(line, message);
+        }
+    }
+}
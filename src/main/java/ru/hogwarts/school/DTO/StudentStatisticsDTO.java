@@ -0,0 +1,74 @@
+package ru.hogwarts.school.DTO;
+
+import java.util.Map;
+import java.util.Objects;
+
+public class StudentStatisticsDTO {
+    private long count;
+    private double averageAge;
+    private Integer minAge;
+    private Integer maxAge;
+    private Map<Integer, Long> ageHistogram;
+
+    public StudentStatisticsDTO() {}
+
+    public StudentStatisticsDTO(long count, double averageAge, Integer minAge, Integer maxAge, Map<Integer, Long> ageHistogram) {
+        this.count = count;
+        this.averageAge = averageAge;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.ageHistogram = ageHistogram;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getAverageAge() {
+        return averageAge;
+    }
+
+    public void setAverageAge(double averageAge) {
+        this.averageAge = averageAge;
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public void setMinAge(Integer minAge) {
+        this.minAge = minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Integer maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public Map<Integer, Long> getAgeHistogram() {
+        return ageHistogram;
+    }
+
+    public void setAgeHistogram(Map<Integer, Long> ageHistogram) {
+        this.ageHistogram = ageHistogram;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        StudentStatisticsDTO that = (StudentStatisticsDTO) o;
+        return count == that.count && Double.compare(averageAge, that.averageAge) == 0 && Objects.equals(minAge, that.minAge) && Objects.equals(maxAge, that.maxAge) && Objects.equals(ageHistogram, that.ageHistogram);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, averageAge, minAge, maxAge, ageHistogram);
+    }
+}
@@ -1,17 +1,22 @@
 package ru.hogwarts.school.controller;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.DTO.AvatarDTO;
+import ru.hogwarts.school.DTO.BatchResult;
 import ru.hogwarts.school.service.AvatarService;
 import ru.hogwarts.school.service.StudentService;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/avatars")
@@ -26,9 +31,31 @@ public class AvatarController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Avatar>> getAllAvatars(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "5") int size) {
+    public ResponseEntity<List<AvatarDTO>> getAllAvatars(@RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "5") int size,
+                                                         @RequestParam(required = false) Long after) {
+        if (after != null) {
+            return ResponseEntity.ok(avatarService.getAvatarsAfter(after, size));
+        }
         Pageable pageable = PageRequest.of(page, size);
-        List<Avatar> avatars = avatarService.getAllAvatars(pageable);
+        List<AvatarDTO> avatars = avatarService.getAllAvatars(pageable);
         return ResponseEntity.ok(avatars);
     }
+
+    @PostMapping("/batch")
+    public BatchResult<AvatarDTO> getAvatars(@RequestBody List<Long> studentIds) {
+        return avatarService.findAvatars(studentIds);
+    }
+
+    @GetMapping("/preview-cache")
+    public Map<String, Object> getPreviewCacheStats() {
+        CacheStats stats = avatarService.getPreviewCacheStats();
+        return Map.of(
+                "hitCount", stats.hitCount(),
+                "missCount", stats.missCount(),
+                "evictionCount", stats.evictionCount(),
+                "hitRate", stats.hitRate(),
+                "sizeBytes", avatarService.getPreviewCacheSize()
+        );
+    }
 }
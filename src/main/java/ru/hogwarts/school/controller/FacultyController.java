@@ -3,7 +3,9 @@ package ru.hogwarts.school.controller;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.hogwarts.school.DTO.BatchResult;
 import ru.hogwarts.school.DTO.FacultyDTO;
+import ru.hogwarts.school.DTO.KeysetPage;
 import ru.hogwarts.school.DTO.StudentDTO;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
@@ -22,9 +24,16 @@ public class FacultyController {
         this.facultyService = facultyService;
     }
 
+    @GetMapping
+    public KeysetPage<FacultyDTO> getFaculties(@RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Long after,
+                                               @RequestParam(defaultValue = "50") int limit) {
+        return facultyService.getFacultiesPage(cursor, after, limit);
+    }
+
     @GetMapping("{id}")
-    public ResponseEntity<Faculty> getFacultyInfo(@PathVariable Long id) {
-        Faculty faculty = facultyService.findFaculty(id);
+    public ResponseEntity<FacultyDTO> getFacultyInfo(@PathVariable Long id) {
+        FacultyDTO faculty = facultyService.findFaculty(id);
         if (faculty == null) {
             return ResponseEntity.notFound().build();
         }
@@ -47,7 +56,7 @@ public class FacultyController {
 
     @DeleteMapping("{id}")
     public ResponseEntity<Void> deleteFaculty(@PathVariable Long id) {
-        Faculty faculty = facultyService.findFaculty(id);
+        FacultyDTO faculty = facultyService.findFaculty(id);
         if (faculty == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
@@ -62,15 +71,20 @@ public class FacultyController {
 
     @GetMapping("/{id}/students")
     public ResponseEntity<Collection<StudentDTO>> getFacultyStudents(@PathVariable Long id) {
-        Faculty faculty = facultyService.findFaculty(id);
-        if (faculty == null) {
-            return ResponseEntity.notFound().build();
-        }
-
-        FacultyDTO facultyDTO = facultyService.convertToDto(faculty);
+        FacultyDTO facultyDTO = facultyService.findFacultyWithStudents(id);
         return ResponseEntity.ok(facultyDTO.getStudents());
     }
 
+    @PostMapping("/batch")
+    public BatchResult<FacultyDTO> getFaculties(@RequestBody List<Long> ids) {
+        return facultyService.findFaculties(ids);
+    }
+
+    @GetMapping("/students")
+    public List<FacultyDTO> getFacultiesWithStudents(@RequestParam List<Long> ids) {
+        return facultyService.findFacultiesWithStudents(ids);
+    }
+
     @GetMapping("/longest-faculty-name")
     public String getLongestFacultyName() {
         return facultyService.getLongestFacultyName();
@@ -0,0 +1,38 @@
+package ru.hogwarts.school.controller;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.hogwarts.school.DTO.FacultyDTO;
+import ru.hogwarts.school.DTO.SearchHitDTO;
+import ru.hogwarts.school.DTO.StudentDTO;
+import ru.hogwarts.school.service.SearchMode;
+import ru.hogwarts.school.service.SearchService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/search")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @GetMapping("/students")
+    public List<SearchHitDTO<StudentDTO>> searchStudents(@RequestParam String q,
+                                                         @RequestParam(defaultValue = "substring") String mode,
+                                                         @RequestParam(defaultValue = "10") int limit) {
+        return searchService.searchStudents(q, SearchMode.of(mode), limit);
+    }
+
+    @GetMapping("/faculties")
+    public List<SearchHitDTO<FacultyDTO>> searchFaculties(@RequestParam String q,
+                                                          @RequestParam(defaultValue = "substring") String mode,
+                                                          @RequestParam(defaultValue = "10") int limit) {
+        return searchService.searchFaculties(q, SearchMode.of(mode), limit);
+    }
+}
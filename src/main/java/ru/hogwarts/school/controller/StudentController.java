@@ -1,27 +1,44 @@
 package ru.hogwarts.school.controller;
 
-import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.hogwarts.school.DTO.BatchResult;
 import ru.hogwarts.school.DTO.FacultyDTO;
+import ru.hogwarts.school.DTO.KeysetPage;
+import ru.hogwarts.school.DTO.StudentAnalyticsDTO;
+import ru.hogwarts.school.DTO.StudentDTO;
+import ru.hogwarts.school.DTO.StudentDetailsDTO;
+import ru.hogwarts.school.DTO.StudentImportReport;
+import ru.hogwarts.school.DTO.StudentStatisticsDTO;
 import ru.hogwarts.school.model.Avatar;
-import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.AvatarMetrics;
+import ru.hogwarts.school.service.AvatarPreviewCache;
 import ru.hogwarts.school.service.AvatarService;
+import ru.hogwarts.school.service.RosterFormat;
+import ru.hogwarts.school.service.StudentAnalyticsService;
+import ru.hogwarts.school.service.StudentExportService;
+import ru.hogwarts.school.service.StudentImportService;
 import ru.hogwarts.school.service.StudentService;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.LongStream;
 
 @RestController
@@ -30,10 +47,43 @@ public class StudentController {
 
     private final StudentService studentService;
     private final AvatarService avatarService;
+    private final StudentExportService studentExportService;
+    private final StudentImportService studentImportService;
+    private final StudentAnalyticsService studentAnalyticsService;
 
-    public StudentController(StudentService studentService, AvatarService avatarService) {
+    public StudentController(StudentService studentService, AvatarService avatarService,
+                             StudentExportService studentExportService, StudentImportService studentImportService,
+                             StudentAnalyticsService studentAnalyticsService) {
         this.studentService = studentService;
         this.avatarService = avatarService;
+        this.studentExportService = studentExportService;
+        this.studentImportService = studentImportService;
+        this.studentAnalyticsService = studentAnalyticsService;
+    }
+
+    @GetMapping
+    public KeysetPage<StudentDTO> getStudents(@RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Long after,
+                                              @RequestParam(defaultValue = "50") int limit) {
+        return studentService.getStudentsPage(cursor, after, limit);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportStudents(@RequestParam(defaultValue = "ndjson") String format,
+                                                                @RequestParam(defaultValue = "false") boolean withFaculty) {
+        RosterFormat exportFormat = RosterFormat.of(format);
+        StreamingResponseBody body = out -> studentExportService.exportStudents(exportFormat, withFaculty, out);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=students." + exportFormat.getExtension())
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = {RosterFormat.CSV_VALUE, RosterFormat.NDJSON_VALUE})
+    public StudentImportReport importStudents(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                              InputStream body) throws IOException {
+        return studentImportService.importStudents(body, RosterFormat.of(contentType));
     }
 
     @GetMapping("/count")
@@ -46,16 +96,31 @@ public class StudentController {
         return studentService.getAverageAge();
     }
 
+    @GetMapping("/statistics")
+    public StudentStatisticsDTO getStatistics() {
+        return studentService.getStatistics();
+    }
+
+    @GetMapping("/analytics")
+    public StudentAnalyticsDTO getAnalytics() {
+        return studentAnalyticsService.analyze();
+    }
+
     @GetMapping("/last-five")
     public Collection<Student> getLastFiveStudents() {
         return studentService.getLastFiveStudents();
     }
 
 
+    @PostMapping("/batch")
+    public BatchResult<StudentDetailsDTO> getStudents(@RequestBody List<Long> ids) {
+        return studentService.findStudents(ids);
+    }
+
     @GetMapping("{id}")
-    public ResponseEntity<Student> getStudentInfo(@PathVariable Long id) {
+    public ResponseEntity<StudentDetailsDTO> getStudentInfo(@PathVariable Long id) {
         try {
-            Student student = studentService.findStudent(id);
+            StudentDetailsDTO student = studentService.findStudent(id);
             return ResponseEntity.ok(student);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -82,27 +147,18 @@ public class StudentController {
     }
 
     @GetMapping("/age/{age}")
-    public Collection<Student> getStudentsByAge(@PathVariable int age) {
+    public List<StudentDTO> getStudentsByAge(@PathVariable int age) {
         return studentService.findByAge(age);
     }
 
     @GetMapping("/age")
-    public Collection<Student> getStudentsByAgeBetween(@RequestParam int minAge, @RequestParam int maxAge) {
+    public List<StudentDTO> getStudentsByAgeBetween(@RequestParam int minAge, @RequestParam int maxAge) {
         return studentService.findByAgeBetween(minAge, maxAge);
     }
 
     @GetMapping("/{id}/faculty")
     public ResponseEntity<FacultyDTO> getStudentFaculty(@PathVariable long id) {
-        Student student = studentService.findStudent(id);
-        Faculty faculty = student.getFaculty();
-
-        if (faculty == null) {
-            return ResponseEntity.notFound().build();
-        }
-
-        FacultyDTO dto = new FacultyDTO(faculty.getId(), faculty.getName(), faculty.getColor());
-
-        return ResponseEntity.ok(dto);
+        return ResponseEntity.of(studentService.findStudentFaculty(id));
     }
 
     @PostMapping(value = "/{id}/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -117,30 +173,89 @@ public class StudentController {
 
     @GetMapping(value = "/{id}/avatar/preview")
     public ResponseEntity<byte[]> downloadAvatar(@PathVariable Long id) {
-        Avatar avatar = avatarService.findAvatar(id);
+        AvatarPreviewCache.AvatarPreview preview = avatarService.getAvatarPreview(id);
 
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType(avatar.getMediaType()));
-        headers.setContentLength(avatar.getData().length);
+        headers.setContentType(MediaType.parseMediaType(preview.mediaType()));
+        headers.setContentLength(preview.data().length);
+        avatarService.recordServed(AvatarMetrics.Variant.PREVIEW, preview.data().length);
 
-        return ResponseEntity.status(HttpStatus.OK).headers(headers).body(avatar.getData());
+        return ResponseEntity.status(HttpStatus.OK).headers(headers).body(preview.data());
     }
 
     @GetMapping(value = "/{id}/avatar")
-    public void downloadAvatar(@PathVariable Long id, HttpServletResponse response) throws IOException {
+    public ResponseEntity<Resource> downloadAvatar(@PathVariable Long id, WebRequest request) throws IOException {
+        Avatar avatar = avatarService.findAvatar(id);
+        return serveAvatar(avatar, avatarService.loadAvatarResource(avatar), request);
+    }
+
+    @GetMapping(value = "/{id}/avatar/thumbnail")
+    public ResponseEntity<Resource> downloadAvatarThumbnail(@PathVariable Long id,
+                                                            @RequestParam(defaultValue = "64") int size,
+                                                            WebRequest request) throws IOException {
         Avatar avatar = avatarService.findAvatar(id);
+        Optional<Resource> thumbnail = avatarService.loadThumbnailResource(avatar, size);
+        if (thumbnail.isEmpty()) {
+            return serveAvatar(avatar, avatarService.loadAvatarResource(avatar), request);
+        }
+
+        Resource resource = thumbnail.get();
+        long lastModified = resource.lastModified();
+        String eTag = avatar.getContentHash() != null
+                ? "\"" + avatar.getContentHash() + "-" + size + "\""
+                : "W/\"" + avatar.getFileSize() + "-" + size + "-" + lastModified + "\"";
+        return serveResource(resource, AvatarMetrics.Variant.THUMBNAIL, MediaType.IMAGE_JPEG, eTag, lastModified, request);
+    }
 
-        Path path = Path.of(avatar.getFilePath());
+    private ResponseEntity<Resource> serveAvatar(Avatar avatar, Resource resource, WebRequest request) throws IOException {
+        long lastModified = resource.lastModified();
+        String eTag = avatar.getContentHash() != null
+                ? "\"" + avatar.getContentHash() + "\""
+                : "W/\"" + avatar.getFileSize() + "-" + lastModified + "\"";
+        return serveResource(resource, AvatarMetrics.Variant.ORIGINAL, MediaType.parseMediaType(avatar.getMediaType()), eTag, lastModified, request);
+    }
 
-        try (InputStream is = Files.newInputStream(path);
-             OutputStream os = response.getOutputStream();) {
-            response.setStatus(200);
-            response.setContentType(avatar.getMediaType());
-            response.setContentLength((int) avatar.getFileSize());
-            is.transferTo(os);
+    private ResponseEntity<Resource> serveResource(Resource resource, AvatarMetrics.Variant variant, MediaType mediaType, String eTag,
+                                                   long lastModified, WebRequest request) throws IOException {
+        if (request.checkNotModified(eTag, lastModified)) {
+            return null;
+        }
+        long bytes = bytesToServe(resource, request);
+        if (bytes > 0) {
+            avatarService.recordServed(variant, bytes);
+        }
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .eTag(eTag)
+                .lastModified(lastModified)
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .body(resource);
+    }
+
+    private long bytesToServe(Resource resource, WebRequest request) throws IOException {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getHttpMethod() == HttpMethod.HEAD) {
+            return 0;
+        }
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null) {
+            return resource.contentLength();
+        }
+        try {
+            return HttpRange.toResourceRegions(HttpRange.parseRanges(range), resource).stream()
+                    .mapToLong(ResourceRegion::getCount)
+                    .sum();
+        } catch (IllegalArgumentException e) {
+            return 0;
         }
     }
 
+    @GetMapping("/name-prefix/{prefix}")
+    public List<StudentDTO> findByNamePrefix(@PathVariable String prefix,
+                                             @RequestParam(defaultValue = "10") int limit) {
+        return studentService.findByNamePrefix(prefix, limit);
+    }
+
     @GetMapping("/name-starts-with-A")
     public List<Student> getStudentsNamesStartingWithA() {
         return studentService.getStudentsNamesStartingWithA();
@@ -159,40 +274,17 @@ public class StudentController {
     }
 
     @GetMapping("/print-parallel")
-    public void printParallel() {
-        ArrayList<Student> students = new ArrayList<>(studentService.getAllStudents());
-
-        System.out.println(students.get(0).getName());
-        System.out.println(students.get(1).getName());
-
-        new Thread(() -> {
-            System.out.println(students.get(2).getName());
-            System.out.println(students.get(3).getName());
-        }).start();
-
-        new Thread(() -> {
-            System.out.println(students.get(4).getName());
-            System.out.println(students.get(5).getName());
-        }).start();
+    public List<String> printParallel() {
+        return studentService.printParallel();
     }
 
     @GetMapping("/print-synchronized")
-    public void printSynchronized() {
-        ArrayList<Student> students = new ArrayList<>(studentService.getAllStudents());
-
-        studentService.synchronizedPrintStudent(students.get(0));
-        studentService.synchronizedPrintStudent(students.get(1));
-
-        new Thread(() -> {
-            studentService.synchronizedPrintStudent(students.get(2));
-            studentService.synchronizedPrintStudent(students.get(3));
-        }).start();
-
-        new Thread(() -> {
-            studentService.synchronizedPrintStudent(students.get(4));
-            studentService.synchronizedPrintStudent(students.get(5));
-        }).start();
-
+    public List<String> printSynchronized() {
+        return studentService.printSynchronized();
+    }
 
+    @GetMapping("/print-executor")
+    public Map<String, Object> getPrintExecutorStatistics() {
+        return studentService.getRosterStatistics();
     }
-}
\ No newline at end of file
+}
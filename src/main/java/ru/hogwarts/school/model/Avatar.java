@@ -3,7 +3,6 @@ package ru.hogwarts.school.model;
 
 import jakarta.persistence.*;
 
-import java.util.Arrays;
 import java.util.Objects;
 
 @Entity
@@ -16,9 +15,7 @@ public class Avatar {
     private String filePath;
     private String mediaType;
     private long fileSize;
-
-    @Lob
-    private byte[] data;
+    private String contentHash;
 
     @OneToOne
     @JoinColumn(name = "student_id")
@@ -42,14 +39,12 @@ public class Avatar {
         if (o == null || getClass() != o.getClass())
             return false;
         Avatar avatar = (Avatar) o;
-        return fileSize == avatar.fileSize && Objects.equals(id, avatar.id) && Objects.equals(filePath, avatar.filePath) && Objects.equals(mediaType, avatar.mediaType) && Arrays.equals(data, avatar.data) && Objects.equals(student, avatar.student);
+        return fileSize == avatar.fileSize && Objects.equals(id, avatar.id) && Objects.equals(filePath, avatar.filePath) && Objects.equals(mediaType, avatar.mediaType) && Objects.equals(contentHash, avatar.contentHash) && Objects.equals(student, avatar.student);
     }
 
     @Override
     public int hashCode() {
-        int result = Objects.hash(id, filePath, mediaType, fileSize, student);
-        result = 31 * result + Arrays.hashCode(data);
-        return result;
+        return Objects.hash(id, filePath, mediaType, fileSize, contentHash, student);
     }
 
     @Override
@@ -59,7 +54,7 @@ public class Avatar {
                 ", filePath='" + filePath + '\'' +
                 ", mediaType='" + mediaType + '\'' +
                 ", fileSize=" + fileSize +
-                ", data=" + Arrays.toString(data) +
+                ", contentHash='" + contentHash + '\'' +
                 ", student=" + student +
                 '}';
     }
@@ -96,12 +91,12 @@ public class Avatar {
         this.fileSize = fileSize;
     }
 
-    public byte[] getData() {
-        return data;
+    public String getContentHash() {
+        return contentHash;
     }
 
-    public void setData(byte[] data) {
-        this.data = data;
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
     }
 
     public Student getStudent() {
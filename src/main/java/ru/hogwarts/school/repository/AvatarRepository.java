@@ -2,14 +2,28 @@ package ru.hogwarts.school.repository;
 
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.hogwarts.school.DTO.AvatarDTO;
 import ru.hogwarts.school.model.Avatar;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface AvatarRepository extends JpaRepository<Avatar, Long> {
     Optional<Avatar> findByStudentId(long studentId);
 
+    boolean existsByContentHash(String contentHash);
+
     Page<Avatar> findAll(Pageable pageable);
 
+    @Query("select new ru.hogwarts.school.DTO.AvatarDTO(a.id, a.student.id, a.mediaType, a.fileSize) from Avatar a order by a.id")
+    List<AvatarDTO> findAllMetadata(Pageable pageable);
+
+    @Query("select new ru.hogwarts.school.DTO.AvatarDTO(a.id, a.student.id, a.mediaType, a.fileSize) from Avatar a where a.id > :afterId order by a.id")
+    List<AvatarDTO> findMetadataAfter(long afterId, Limit limit);
+
+    @Query("select new ru.hogwarts.school.DTO.AvatarDTO(a.id, a.student.id, a.mediaType, a.fileSize) from Avatar a where a.student.id in :studentIds")
+    List<AvatarDTO> findMetadataByStudentIdIn(Collection<Long> studentIds);
 
 }
@@ -1,10 +1,62 @@
 package ru.hogwarts.school.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.hogwarts.school.DTO.FacultyDTO;
 import ru.hogwarts.school.model.Faculty;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public interface FacultyRepository extends JpaRepository<Faculty, Long> {
 
-    Collection<Faculty> findByNameContainingIgnoreCaseOrColorContainingIgnoreCase(String name, String color);
+    @Query(value = "SELECT * FROM faculty WHERE lower(name) LIKE lower('%' || :#{escape([0])} || '%') " +
+            "OR lower(color) LIKE lower('%' || :#{escape([0])} || '%')", nativeQuery = true)
+    Collection<Faculty> searchByNameOrColor(String part);
+
+    @Query(value = "SELECT id, name, color, greatest(similarity(lower(name), :query), similarity(lower(color), :query)) AS score " +
+            "FROM faculty WHERE lower(name) LIKE :pattern OR lower(color) LIKE :pattern " +
+            "ORDER BY score DESC, name LIMIT :limit", nativeQuery = true)
+    List<NameColorSearchRow> searchByPattern(String query, String pattern, int limit);
+
+    @Query(value = "SELECT id, name, color, greatest(similarity(lower(name), :query), similarity(lower(color), :query)) AS score " +
+            "FROM faculty WHERE lower(name) % :query OR lower(color) % :query " +
+            "ORDER BY score DESC, name LIMIT :limit", nativeQuery = true)
+    List<NameColorSearchRow> searchBySimilarity(String query, int limit);
+
+    @EntityGraph(attributePaths = "students")
+    @Query("select f from Faculty f where f.id = :id")
+    Optional<Faculty> findWithStudentsById(long id);
+
+    @EntityGraph(attributePaths = "students")
+    @Query("select f from Faculty f where f.id in :ids order by f.id")
+    List<Faculty> findAllWithStudentsByIdIn(Collection<Long> ids);
+
+    @Query("select new ru.hogwarts.school.DTO.FacultyDTO(f.id, f.name, f.color) from Faculty f where f.id = :id")
+    Optional<FacultyDTO> findDtoById(long id);
+
+    @Query("select new ru.hogwarts.school.DTO.FacultyDTO(f.id, f.name, f.color) from Faculty f where f.id in :ids")
+    List<FacultyDTO> findDtosByIdIn(Collection<Long> ids);
+
+    @Query("select f.id from Faculty f where f.id in :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("select new ru.hogwarts.school.DTO.FacultyDTO(f.id, f.name, f.color) from Faculty f where f.id > :afterId order by f.id")
+    List<FacultyDTO> findPageAfter(long afterId, Limit limit);
+
+    @Query("select f.name from Faculty f where f.name is not null order by length(f.name) desc, f.id")
+    List<String> findNamesByLengthDesc(Limit limit);
+
+    interface NameColorSearchRow {
+        Long getId();
+
+        String getName();
+
+        String getColor();
+
+        double getScore();
+    }
 }
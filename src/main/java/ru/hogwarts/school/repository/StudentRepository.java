@@ -1,16 +1,32 @@
 package ru.hogwarts.school.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.hogwarts.school.DTO.FacultyDTO;
+import ru.hogwarts.school.DTO.StudentDTO;
+import ru.hogwarts.school.DTO.StudentDetailsDTO;
+import ru.hogwarts.school.DTO.StudentExportRow;
 import ru.hogwarts.school.model.Student;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface StudentRepository extends JpaRepository<Student, Long> {
 
-    Collection<Student> findByAge(int age);
+    @Query("select new ru.hogwarts.school.DTO.StudentDTO(s.id, s.name, s.age) from Student s where s.age = :age")
+    List<StudentDTO> findDtoByAge(int age);
 
-    Collection<Student> findByAgeBetween(int minAge, int maxAge);
+    @Query("select new ru.hogwarts.school.DTO.StudentDTO(s.id, s.name, s.age) from Student s where s.age between :minAge and :maxAge")
+    List<StudentDTO> findDtoByAgeBetween(int minAge, int maxAge);
 
     @Query(value = "SELECT COUNT(*) FROM Student", nativeQuery = true)
     int countAllStudents();
@@ -18,9 +34,71 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     @Query(value = "SELECT avg(age) from Student", nativeQuery = true)
     double findAvgAge();
 
+    @Query("select s.age, count(s) from Student s group by s.age")
+    List<Object[]> countByAge();
+
+    @Query("select s.age from Student s where s.id = :id")
+    Optional<Integer> findAgeById(long id);
+
     @Query(value = "select * from Student ORDER BY id DESC LIMIT 5", nativeQuery = true)
     Collection<Student> findLastFiveStudents();
 
+    @Query("select new ru.hogwarts.school.DTO.StudentDTO(s.id, s.name, s.age) from Student s where s.id > :afterId order by s.id")
+    List<StudentDTO> findPageAfter(long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new ru.hogwarts.school.DTO.StudentExportRow(s.id, s.name, s.age) from Student s order by s.id")
+    Stream<StudentExportRow> streamExportRows();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select s.age, length(s.name), f.id from Student s left join s.faculty f")
+    Stream<Object[]> streamAnalyticsColumns();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new ru.hogwarts.school.DTO.StudentExportRow(s.id, s.name, s.age, f.name) from Student s left join s.faculty f order by s.id")
+    Stream<StudentExportRow> streamExportRowsWithFaculty();
+
+    List<Student> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    @Query("select new ru.hogwarts.school.DTO.FacultyDTO(f.id, f.name, f.color) from Student s join s.faculty f where s.id = :id")
+    Optional<FacultyDTO> findFacultyByStudentId(long id);
+
+    @Query("select s.name from Student s where s.name in :names")
+    Set<String> findExistingNames(Collection<String> names);
+
+    @Query("select new ru.hogwarts.school.DTO.StudentDetailsDTO(s.id, s.name, s.age, f.id, f.name, f.color) " +
+            "from Student s left join s.faculty f where s.id = :id")
+    Optional<StudentDetailsDTO> findDetailsById(long id);
+
+    @Query("select new ru.hogwarts.school.DTO.StudentDetailsDTO(s.id, s.name, s.age, f.id, f.name, f.color) " +
+            "from Student s left join s.faculty f where s.id in :ids")
+    List<StudentDetailsDTO> findDetailsByIdIn(Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Student s where s.id = :id")
+    Optional<Student> findByIdForUpdate(long id);
+
+    @Query("select new ru.hogwarts.school.DTO.StudentDTO(s.id, s.name, s.age) from Student s")
+    List<StudentDTO> findAllNames();
+
+    @Query(value = "SELECT id, name, age, similarity(lower(name), :query) AS score FROM student " +
+            "WHERE lower(name) LIKE :pattern ORDER BY score DESC, name LIMIT :limit", nativeQuery = true)
+    List<NameSearchRow> searchByNamePattern(String query, String pattern, int limit);
+
+    @Query(value = "SELECT id, name, age, similarity(lower(name), :query) AS score FROM student " +
+            "WHERE lower(name) % :query ORDER BY score DESC, name LIMIT :limit", nativeQuery = true)
+    List<NameSearchRow> searchByNameSimilarity(String query, int limit);
+
     void deleteAll();
 
+    interface NameSearchRow {
+        Long getId();
+
+        String getName();
+
+        int getAge();
+
+        double getScore();
+    }
+
 }
@@ -0,0 +1,225 @@
+package ru.hogwarts.school.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class AvatarMetadataWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvatarMetadataWriter.class);
+
+    private final StudentRepository studentRepository;
+    private final AvatarRepository avatarRepository;
+    private final AvatarStore avatarStore;
+    private final AvatarPreviewCache previewCache;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final Map<Long, Uploads> uploads = new ConcurrentHashMap<>();
+
+    public AvatarMetadataWriter(StudentRepository studentRepository, AvatarRepository avatarRepository,
+                                AvatarStore avatarStore, AvatarPreviewCache previewCache,
+                                TransactionTemplate transactionTemplate) {
+        this.studentRepository = studentRepository;
+        this.avatarRepository = avatarRepository;
+        this.avatarStore = avatarStore;
+        this.previewCache = previewCache;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public long nextSequence(long studentId) {
+        long next = sequence.incrementAndGet();
+        uploads.merge(studentId, new Uploads(next, 1), Uploads::merge);
+        return next;
+    }
+
+    public void track(AvatarMetadata metadata) {
+        sequence.accumulateAndGet(metadata.sequence(), Math::max);
+        uploads.merge(metadata.studentId(), new Uploads(metadata.sequence(), 1), Uploads::merge);
+        avatarStore.retain(metadata.location());
+    }
+
+    public void write(AvatarMetadata metadata) throws IOException {
+        SaveResult result;
+        try {
+            result = transactionTemplate.execute(status -> save(metadata));
+        } catch (RuntimeException e) {
+            try {
+                discard(metadata);
+            } finally {
+                finish(metadata);
+            }
+            throw e;
+        }
+        complete(metadata, result);
+    }
+
+    public BatchResult writeBatch(List<AvatarMetadata> batch) {
+        List<SaveResult> results;
+        try {
+            results = transactionTemplate.execute(status -> {
+                List<SaveResult> saved = new ArrayList<>(batch.size());
+                for (AvatarMetadata metadata : batch) {
+                    saved.add(save(metadata));
+                }
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                logger.warn("Batch write of {} avatars failed with a transient error, it will be retried", batch.size(), e);
+                return new BatchResult(List.of(), batch);
+            }
+            logger.warn("Batch write of {} avatars failed, retrying one by one", batch.size(), e);
+            return writeOneByOne(batch);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            completeQuietly(batch.get(i), results.get(i));
+        }
+        return new BatchResult(List.of(), List.of());
+    }
+
+    private BatchResult writeOneByOne(List<AvatarMetadata> batch) {
+        List<AvatarMetadata> failed = new ArrayList<>();
+        List<AvatarMetadata> retry = new ArrayList<>();
+        for (AvatarMetadata metadata : batch) {
+            SaveResult result;
+            try {
+                result = transactionTemplate.execute(status -> save(metadata));
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    logger.warn("Transient failure writing avatar metadata for student with id = {}, it will be retried",
+                            metadata.studentId(), e);
+                    retry.add(metadata);
+                } else {
+                    logger.error("Failed to write avatar metadata for student with id = {}", metadata.studentId(), e);
+                    failed.add(metadata);
+                    discardQuietly(metadata);
+                }
+                continue;
+            }
+            completeQuietly(metadata, result);
+        }
+        return new BatchResult(failed, retry);
+    }
+
+    private SaveResult save(AvatarMetadata metadata) {
+        long studentId = metadata.studentId();
+        Student student = studentRepository.findByIdForUpdate(studentId).orElseThrow(() -> {
+            logger.error("Not found student with id = {} for upload avatar", studentId);
+            return new RuntimeException("Not found student with id = " + studentId);
+        });
+        if (isSuperseded(metadata)) {
+            logger.debug("Avatar {} for student with id = {} is superseded by a newer upload", metadata.location(), studentId);
+            return SaveResult.SUPERSEDED;
+        }
+
+        Avatar avatar = avatarRepository.findByStudentId(studentId).orElseGet(Avatar::new);
+        String previousPath = avatar.getFilePath();
+        String previousHash = avatar.getContentHash();
+
+        avatar.setStudent(student);
+        avatar.setFilePath(metadata.location());
+        avatar.setFileSize(metadata.size());
+        avatar.setMediaType(metadata.mediaType());
+        avatar.setContentHash(metadata.contentHash());
+
+        avatarRepository.save(avatar);
+
+        boolean replacedFile = previousPath != null && !previousPath.equals(metadata.location());
+        return new SaveResult(false, replacedFile ? previousPath : null, previousHash);
+    }
+
+    private boolean isSuperseded(AvatarMetadata metadata) {
+        Uploads pending = uploads.get(metadata.studentId());
+        return pending != null && pending.latest() > metadata.sequence();
+    }
+
+    private void complete(AvatarMetadata metadata, SaveResult result) throws IOException {
+        try {
+            if (result.superseded()) {
+                discard(metadata);
+                return;
+            }
+            avatarStore.release(metadata.location());
+            previewCache.invalidate(metadata.studentId());
+            if (result.replacedLocation() != null) {
+                avatarStore.deleteIfUnreferenced(result.replacedLocation(),
+                        () -> result.replacedHash() != null && avatarRepository.existsByContentHash(result.replacedHash()));
+            }
+        } finally {
+            finish(metadata);
+        }
+    }
+
+    private void completeQuietly(AvatarMetadata metadata, SaveResult result) {
+        try {
+            complete(metadata, result);
+        } catch (IOException e) {
+            logger.warn("Failed to delete avatar file left over by {}", metadata.location(), e);
+        }
+    }
+
+    private void discard(AvatarMetadata metadata) throws IOException {
+        avatarStore.release(metadata.location());
+        avatarStore.deleteIfUnreferenced(metadata.location(),
+                () -> avatarRepository.existsByContentHash(metadata.contentHash()));
+    }
+
+    private void discardQuietly(AvatarMetadata metadata) {
+        try {
+            discard(metadata);
+        } catch (IOException e) {
+            logger.warn("Failed to delete avatar file {}", metadata.location(), e);
+        } finally {
+            finish(metadata);
+        }
+    }
+
+    private void finish(AvatarMetadata metadata) {
+        uploads.computeIfPresent(metadata.studentId(),
+                (id, pending) -> pending.count() == 1 ? null : new Uploads(pending.latest(), pending.count() - 1));
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    public record AvatarMetadata(long studentId, String location, String contentHash, long size, String mediaType,
+                                 long sequence) {
+    }
+
+    public record BatchResult(List<AvatarMetadata> failed, List<AvatarMetadata> retry) {
+    }
+
+    private record SaveResult(boolean superseded, String replacedLocation, String replacedHash) {
+
+        private static final SaveResult SUPERSEDED = new SaveResult(true, null, null);
+    }
+
+    private record Uploads(long latest, int count) {
+
+        private Uploads merge(Uploads other) {
+            return new Uploads(Math.max(latest, other.latest), count + other.count);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class AvatarMetrics implements MeterBinder {
+
+    private final LongAdder bytesIn = new LongAdder();
+    private final Map<Variant, LongAdder> bytesOut = new EnumMap<>(Variant.class);
+
+    public AvatarMetrics() {
+        for (Variant variant : Variant.values()) {
+            bytesOut.put(variant, new LongAdder());
+        }
+    }
+
+    public void recordUpload(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    public void recordDownload(Variant variant, long bytes) {
+        bytesOut.get(variant).add(bytes);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("avatars.bytes.in", bytesIn, LongAdder::sum)
+                .description("Avatar bytes received in uploads")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        bytesOut.forEach((variant, counter) -> FunctionCounter.builder("avatars.bytes.out", counter, LongAdder::sum)
+                .description("Avatar bytes sent in responses")
+                .baseUnit(BaseUnits.BYTES)
+                .tag("variant", variant.name().toLowerCase(Locale.ROOT))
+                .register(registry));
+    }
+
+    public enum Variant {
+        ORIGINAL,
+        THUMBNAIL,
+        PREVIEW
+    }
+}
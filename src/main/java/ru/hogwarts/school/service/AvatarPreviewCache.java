@@ -0,0 +1,87 @@
+package ru.hogwarts.school.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+@Component
+public class AvatarPreviewCache implements MeterBinder {
+
+    private final AsyncCache<Long, AvatarPreview> cache;
+
+    public AvatarPreviewCache(@Value("${avatars.preview-cache.max-size:16MB}") DataSize maxSize,
+                              @Value("${avatars.preview-cache.ttl:PT10M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Long studentId, AvatarPreview preview) -> preview.data().length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "avatarPreviews",
+                "cache.manager", "avatarPreviewCache", "name", "avatarPreviews");
+    }
+
+    public AvatarPreview get(long studentId, Function<Long, AvatarPreview> loader) {
+        CompletableFuture<AvatarPreview> load = new CompletableFuture<>();
+        CompletableFuture<AvatarPreview> cached = cache.get(studentId, (id, executor) -> load);
+        if (cached != load) {
+            return await(cached);
+        }
+
+        try {
+            AvatarPreview preview = loader.apply(studentId);
+            load.complete(preview);
+            return preview;
+        } catch (RuntimeException | Error e) {
+            cache.asMap().remove(studentId, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private AvatarPreview await(CompletableFuture<AvatarPreview> cached) {
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidate(long studentId) {
+        cache.synchronous().invalidate(studentId);
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    public long weightedSize() {
+        return cache.synchronous().policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    public record AvatarPreview(String mediaType, byte[] data) {
+    }
+}
@@ -1,87 +1,152 @@
 package ru.hogwarts.school.service;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import ru.hogwarts.school.DTO.AvatarDTO;
+import ru.hogwarts.school.DTO.BatchResult;
 import ru.hogwarts.school.model.Avatar;
-import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.AvatarRepository;
 import ru.hogwarts.school.repository.StudentRepository;
 
-import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
-
-import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import java.util.Optional;
 
 @Service
 public class AvatarService {
 
     private static final Logger logger = LoggerFactory.getLogger(AvatarService.class);
 
-    @Value("${avatars.dir.path}")
-    private String avatarsDir;
-
-    private StudentRepository studentRepository;
     private AvatarRepository avatarRepository;
-
-    public AvatarService(StudentRepository studentRepository, AvatarRepository avatarRepository) {
-        this.studentRepository = studentRepository;
+    private StudentRepository studentRepository;
+    private AvatarStore avatarStore;
+    private AvatarPreviewCache previewCache;
+    private AvatarThumbnailService thumbnailService;
+    private AvatarMetadataWriter metadataWriter;
+    private AvatarWriteBehind writeBehind;
+    private AvatarMetrics avatarMetrics;
+    private SingleFlight<Long, Optional<Avatar>> avatarLookups;
+
+    public AvatarService(AvatarRepository avatarRepository, StudentRepository studentRepository,
+                         AvatarStore avatarStore, AvatarPreviewCache previewCache,
+                         AvatarThumbnailService thumbnailService, AvatarMetadataWriter metadataWriter,
+                         AvatarWriteBehind writeBehind, AvatarMetrics avatarMetrics,
+                         SingleFlightRegistry singleFlightRegistry) {
         this.avatarRepository = avatarRepository;
+        this.studentRepository = studentRepository;
+        this.avatarStore = avatarStore;
+        this.previewCache = previewCache;
+        this.thumbnailService = thumbnailService;
+        this.metadataWriter = metadataWriter;
+        this.writeBehind = writeBehind;
+        this.avatarMetrics = avatarMetrics;
+        this.avatarLookups = singleFlightRegistry.create("avatars");
     }
 
-    @Transactional(readOnly = true)
     public Avatar findAvatar(long studentId) {
         logger.debug("Was invoked method for finding avatar for student with id {}", studentId);
-        return avatarRepository.findByStudentId(studentId).orElseThrow(() -> {
+        return avatarLookups.execute(studentId, () -> avatarRepository.findByStudentId(studentId)).orElseThrow(() -> {
             logger.error("Not found avatar for student with id = {}", studentId);
             return new RuntimeException("Not found student with id = " + studentId);
         });
     }
 
-
-
     public void uploadAvatar(Long studentId, MultipartFile file) throws IOException {
-        logger.info("Was invoked method for uploading avatar for student with id {}", studentId);
-        Student student = studentRepository.findById(studentId).orElseThrow(() -> {
+        logger.debug("Was invoked method for uploading avatar for student with id {}", studentId);
+        if (!studentRepository.existsById(studentId)) {
             logger.error("Not found student with id = {} for upload avatar", studentId);
-            return new RuntimeException("Not found student with id = " + studentId);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Student not found");
+        }
+
+        AvatarStore.StoredAvatar stored;
+        try (InputStream is = file.getInputStream()) {
+            stored = avatarStore.store(is, getExtension(Objects.requireNonNull(file.getOriginalFilename())));
+        }
+        avatarMetrics.recordUpload(stored.size());
+
+        AvatarMetadataWriter.AvatarMetadata metadata = new AvatarMetadataWriter.AvatarMetadata(studentId,
+                stored.location(), stored.contentHash(), stored.size(),
+                stored.mediaType() != null ? stored.mediaType() : file.getContentType(),
+                metadataWriter.nextSequence(studentId));
+        writeBehind.write(metadata);
+        thumbnailService.scheduleThumbnails(stored.location());
+    }
+
+    public byte[] readAvatarData(Avatar avatar) throws IOException {
+        logger.debug("Was invoked method for reading avatar data from {}", avatar.getFilePath());
+        return avatarStore.read(avatar.getFilePath());
+    }
+
+    public AvatarPreviewCache.AvatarPreview getAvatarPreview(long studentId) {
+        logger.debug("Was invoked method for getting avatar preview for student with id {}", studentId);
+        return previewCache.get(studentId, id -> {
+            Avatar avatar = avatarRepository.findByStudentId(id).orElseThrow(() -> {
+                logger.error("Not found avatar for student with id = {}", id);
+                return new RuntimeException("Not found student with id = " + id);
+            });
+            try {
+                return new AvatarPreviewCache.AvatarPreview(avatar.getMediaType(), readAvatarData(avatar));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         });
+    }
 
-        Path filePath = Path.of(avatarsDir, studentId + "." + getExtension(Objects.requireNonNull(file.getOriginalFilename())));
-        Files.createDirectories(filePath.getParent());
-        Files.deleteIfExists(filePath);
+    public void recordServed(AvatarMetrics.Variant variant, long bytes) {
+        avatarMetrics.recordDownload(variant, bytes);
+    }
 
-        try (InputStream is = file.getInputStream();
-             OutputStream os = Files.newOutputStream(filePath, CREATE_NEW);
-             BufferedInputStream bis = new BufferedInputStream(is, 1024);
-             BufferedOutputStream bos = new BufferedOutputStream(os, 1024);
-        ) {
-            bis.transferTo(bos);
-        }
+    public CacheStats getPreviewCacheStats() {
+        return previewCache.stats();
+    }
+
+    public long getPreviewCacheSize() {
+        return previewCache.weightedSize();
+    }
 
-        Avatar avatar = avatarRepository.findByStudentId(studentId).orElseGet(Avatar::new);
-        avatar.setStudent(student);
-        avatar.setFilePath(filePath.toString());
-        avatar.setFileSize(file.getSize());
-        avatar.setMediaType(file.getContentType());
-        avatar.setData(file.getBytes());
+    public Resource loadAvatarResource(Avatar avatar) {
+        logger.debug("Was invoked method for loading avatar resource from {}", avatar.getFilePath());
+        return avatarStore.load(avatar.getFilePath());
+    }
 
-        avatarRepository.save(avatar);
+    public Optional<Resource> loadThumbnailResource(Avatar avatar, int size) {
+        logger.debug("Was invoked method for loading {}px thumbnail from {}", size, avatar.getFilePath());
+        Optional<Resource> thumbnail = thumbnailService.findThumbnail(avatar.getFilePath(), size);
+        if (thumbnail.isEmpty()) {
+            thumbnailService.scheduleThumbnails(avatar.getFilePath());
+        }
+        return thumbnail;
     }
 
     private String getExtension(String fileName) {
         return fileName.substring(fileName.lastIndexOf(".") + 1);
     }
 
-    public List<Avatar> getAllAvatars(Pageable pageable) {
+    public BatchResult<AvatarDTO> findAvatars(Collection<Long> studentIds) {
+        logger.debug("Was invoked method for finding avatar metadata for students {}", studentIds);
+        List<Long> distinctIds = BatchLookups.distinctIds(studentIds);
+        return BatchLookups.toResult(distinctIds, avatarRepository.findMetadataByStudentIdIn(distinctIds), AvatarDTO::getStudentId);
+    }
+
+    public List<AvatarDTO> getAllAvatars(Pageable pageable) {
         logger.debug("Was invoked method for retrieving all avatars with pagination");
-        return avatarRepository.findAll(pageable).getContent();
+        return avatarRepository.findAllMetadata(pageable);
+    }
+
+    public List<AvatarDTO> getAvatarsAfter(long afterId, int limit) {
+        logger.debug("Was invoked method for retrieving {} avatars after id {}", limit, afterId);
+        return avatarRepository.findMetadataAfter(afterId, Limit.of(limit));
     }
 }
@@ -0,0 +1,32 @@
+package ru.hogwarts.school.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+public interface AvatarStore {
+
+    StoredAvatar store(InputStream content, String extension) throws IOException;
+
+    byte[] read(String location) throws IOException;
+
+    Resource load(String location);
+
+    void storeVariant(String location, String variant, byte[] data) throws IOException;
+
+    Optional<Resource> loadVariant(String location, String variant);
+
+    void delete(String location) throws IOException;
+
+    void retain(String location);
+
+    void release(String location);
+
+    boolean deleteIfUnreferenced(String location, BooleanSupplier referenced) throws IOException;
+
+    record StoredAvatar(String location, String contentHash, long size, String mediaType) {
+    }
+}
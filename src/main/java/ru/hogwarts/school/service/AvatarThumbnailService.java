@@ -0,0 +1,179 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class AvatarThumbnailService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvatarThumbnailService.class);
+
+    private static final String FORMAT = "jpg";
+
+    private final AvatarStore avatarStore;
+    private final List<Integer> sizes;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+
+    public AvatarThumbnailService(AvatarStore avatarStore,
+                                  @Value("${avatars.thumbnails.sizes:64,256}") List<Integer> sizes,
+                                  @Value("${avatars.thumbnails.max-pixels:25000000}") long maxPixels,
+                                  @Value("${avatars.thumbnails.workers:2}") int workers,
+                                  @Value("${avatars.thumbnails.queue-capacity:100}") int queueCapacity,
+                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.avatarStore = avatarStore;
+        this.sizes = List.copyOf(sizes);
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(virtualThreads));
+    }
+
+    private static ThreadFactory threadFactory(boolean virtualThreads) {
+        return virtualThreads
+                ? new VirtualThreadTaskExecutor("avatar-thumbnail-").getVirtualThreadFactory()
+                : new CustomizableThreadFactory("avatar-thumbnail-");
+    }
+
+    public void scheduleThumbnails(String location) {
+        if (!scheduled.add(location)) {
+            logger.debug("Thumbnails for {} are already scheduled", location);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateThumbnails(location);
+                } finally {
+                    scheduled.remove(location);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            scheduled.remove(location);
+            logger.warn("Thumbnail queue is full, skipping thumbnails for {}", location);
+        }
+    }
+
+    public Optional<Resource> findThumbnail(String location, int size) {
+        if (!sizes.contains(size)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported thumbnail size " + size + ", expected one of " + sizes);
+        }
+        return avatarStore.loadVariant(location, variantName(size));
+    }
+
+    void generateThumbnails(String location) {
+        logger.debug("Generating thumbnails for {}", location);
+        try {
+            BufferedImage source;
+            try (InputStream is = avatarStore.load(location).getInputStream();
+                 ImageInputStream image = ImageIO.createImageInputStream(is)) {
+                source = decode(location, image);
+            }
+            if (source == null) {
+                return;
+            }
+
+            for (int size : sizes) {
+                if (avatarStore.loadVariant(location, variantName(size)).isPresent()) {
+                    continue;
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ImageIO.write(scale(source, size), FORMAT, out);
+                avatarStore.storeVariant(location, variantName(size), out.toByteArray());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to generate thumbnails for {}", location, e);
+        }
+    }
+
+    private BufferedImage decode(String location, ImageInputStream image) throws IOException {
+        Iterator<ImageReader> readers = image != null ? ImageIO.getImageReaders(image) : null;
+        if (readers == null || !readers.hasNext()) {
+            logger.warn("Avatar {} is not a readable image, skipping thumbnails", location);
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(image, true, true);
+            long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+            if (pixels > maxPixels) {
+                logger.warn("Avatar {} has {} pixels, more than the limit of {}, skipping thumbnails", location, pixels, maxPixels);
+                return null;
+            }
+            return reader.read(0);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source, int size) {
+        double ratio = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = step.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(current, 0, 0, width, height, null);
+            g.dispose();
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private String variantName(int size) {
+        return size + "." + FORMAT;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, "avatar-thumbnails", Tags.empty()).bindTo(registry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
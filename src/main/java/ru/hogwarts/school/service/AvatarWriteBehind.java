@@ -0,0 +1,276 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+@Component
+public class AvatarWriteBehind implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvatarWriteBehind.class);
+
+    private static final String MARKER_SUFFIX = ".json";
+
+    private final AvatarMetadataWriter metadataWriter;
+    private final ObjectMapper objectMapper;
+    private final Path pendingDir;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration maxBackoff;
+    private final BlockingQueue<Pending> queue;
+    private final List<Pending> recovered = new ArrayList<>();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public AvatarWriteBehind(AvatarMetadataWriter metadataWriter, ObjectMapper objectMapper,
+                             @Value("${avatars.dir.path}") String avatarsDir,
+                             @Value("${avatars.write-behind.enabled:false}") boolean enabled,
+                             @Value("${avatars.write-behind.queue-capacity:1000}") int queueCapacity,
+                             @Value("${avatars.write-behind.batch-size:50}") int batchSize,
+                             @Value("${avatars.write-behind.flush-interval:200ms}") Duration flushInterval,
+                             @Value("${avatars.write-behind.max-backoff:30s}") Duration maxBackoff) {
+        this.metadataWriter = metadataWriter;
+        this.objectMapper = objectMapper;
+        this.pendingDir = Path.of(avatarsDir, "pending");
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.maxBackoff = maxBackoff;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flusher = new CustomizableThreadFactory("avatar-write-behind-").newThread(this::run);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        recover();
+        if (enabled || !recovered.isEmpty()) {
+            flusher.start();
+        }
+    }
+
+    public void write(AvatarMetadataWriter.AvatarMetadata metadata) throws IOException {
+        if (!enabled) {
+            metadataWriter.write(metadata);
+            return;
+        }
+
+        Path marker;
+        try {
+            marker = writeMarker(metadata);
+        } catch (IOException e) {
+            logger.warn("Failed to write write-behind marker for student with id = {}, writing metadata synchronously",
+                    metadata.studentId(), e);
+            fallbacks.increment();
+            metadataWriter.write(metadata);
+            return;
+        }
+        if (running && queue.offer(new Pending(metadata, marker))) {
+            return;
+        }
+
+        logger.warn("Avatar write-behind queue is full or stopped, writing metadata for student with id = {} synchronously",
+                metadata.studentId());
+        fallbacks.increment();
+        try {
+            metadataWriter.write(metadata);
+        } finally {
+            deleteMarker(marker);
+        }
+    }
+
+    private void run() {
+        Deque<Pending> backlog = new ArrayDeque<>(recovered);
+        recovered.clear();
+        List<Pending> batch = new ArrayList<>(batchSize);
+        int attempts = 0;
+        while (hasWork(backlog, attempts)) {
+            try {
+                if (attempts > 0) {
+                    Thread.sleep(backoff(attempts).toMillis());
+                }
+                if (backlog.isEmpty()) {
+                    Pending first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+                while (batch.size() < batchSize && !backlog.isEmpty()) {
+                    batch.add(backlog.poll());
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                List<Pending> retry = flush(batch);
+                backlog.addAll(retry);
+                attempts = retry.isEmpty() ? 0 : attempts + 1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Avatar write-behind flush of {} entries failed, markers are kept for recovery on restart", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean hasWork(Deque<Pending> backlog, int attempts) {
+        if (running) {
+            return enabled || !backlog.isEmpty();
+        }
+        return !queue.isEmpty() || (attempts == 0 && !backlog.isEmpty());
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = flushInterval.multipliedBy(1L << Math.min(attempts - 1, 16));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private List<Pending> flush(List<Pending> batch) {
+        logger.debug("Flushing {} avatar metadata writes", batch.size());
+        AvatarMetadataWriter.BatchResult result = metadataWriter.writeBatch(
+                batch.stream().map(Pending::metadata).toList());
+        written.add(batch.size() - result.failed().size() - result.retry().size());
+        failed.add(result.failed().size());
+        retried.add(result.retry().size());
+
+        Set<AvatarMetadataWriter.AvatarMetadata> retry = new HashSet<>(result.retry());
+        List<Pending> pending = new ArrayList<>(retry.size());
+        for (Pending entry : batch) {
+            if (retry.contains(entry.metadata())) {
+                pending.add(entry);
+            } else {
+                deleteMarker(entry.marker());
+            }
+        }
+        return pending;
+    }
+
+    private void recover() throws IOException {
+        if (!Files.isDirectory(pendingDir)) {
+            return;
+        }
+        List<Path> markers = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(pendingDir, "*" + MARKER_SUFFIX)) {
+            stream.forEach(markers::add);
+        }
+        if (markers.isEmpty()) {
+            return;
+        }
+        markers.sort(null);
+        logger.info("Recovering {} pending avatar metadata writes from {}", markers.size(), pendingDir);
+
+        for (Path marker : markers) {
+            AvatarMetadataWriter.AvatarMetadata metadata;
+            try {
+                metadata = objectMapper.readValue(marker.toFile(), AvatarMetadataWriter.AvatarMetadata.class);
+            } catch (IOException e) {
+                logger.error("Skipping unreadable write-behind marker {}", marker, e);
+                Files.deleteIfExists(marker);
+                continue;
+            }
+            metadataWriter.track(metadata);
+            recovered.add(new Pending(metadata, marker));
+        }
+    }
+
+    private void deleteMarker(Path marker) {
+        try {
+            Files.deleteIfExists(marker);
+        } catch (IOException e) {
+            logger.warn("Failed to delete write-behind marker {}", marker, e);
+        }
+    }
+
+    private Path writeMarker(AvatarMetadataWriter.AvatarMetadata metadata) throws IOException {
+        Files.createDirectories(pendingDir);
+        Path marker = pendingDir.resolve(String.format("%020d-%d%s", metadata.sequence(), metadata.studentId(), MARKER_SUFFIX));
+        Path tempFile = Files.createTempFile(pendingDir, "marker-", ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(tempFile, WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(objectMapper.writeValueAsBytes(metadata));
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(true);
+            }
+            Files.move(tempFile, marker, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return marker;
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("avatars.write.behind.queued", queue, BlockingQueue::size)
+                .description("Avatar metadata writes waiting to be flushed")
+                .register(registry);
+        FunctionCounter.builder("avatars.write.behind.written", written, LongAdder::sum)
+                .description("Avatar metadata writes flushed by the write-behind queue")
+                .register(registry);
+        FunctionCounter.builder("avatars.write.behind.failed", failed, LongAdder::sum)
+                .description("Avatar metadata writes dropped after a failed flush")
+                .register(registry);
+        FunctionCounter.builder("avatars.write.behind.retried", retried, LongAdder::sum)
+                .description("Avatar metadata writes requeued after a transient database failure")
+                .register(registry);
+        FunctionCounter.builder("avatars.write.behind.fallbacks", fallbacks, LongAdder::sum)
+                .description("Avatar metadata writes performed synchronously on the request thread")
+                .register(registry);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher.isAlive()) {
+            flusher.join(flushInterval.toMillis() * 10);
+        }
+        if (flusher.isAlive()) {
+            logger.warn("Avatar write-behind queue was not drained in time, remaining markers are kept for recovery on restart");
+            flusher.interrupt();
+            flusher.join(flushInterval.toMillis() * 10);
+        }
+    }
+
+    private record Pending(AvatarMetadataWriter.AvatarMetadata metadata, Path marker) {
+    }
+}
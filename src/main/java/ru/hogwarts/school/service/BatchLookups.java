@@ -0,0 +1,53 @@
+package ru.hogwarts.school.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import ru.hogwarts.school.DTO.BatchResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+final class BatchLookups {
+
+    static final int MAX_BATCH_SIZE = 100;
+
+    private BatchLookups() {
+    }
+
+    static List<Long> distinctIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one id must be requested");
+        }
+        if (ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ids must not be null");
+        }
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH_SIZE + " ids can be requested at once");
+        }
+        return distinct;
+    }
+
+    static <T> BatchResult<T> toResult(List<Long> ids, List<T> rows, Function<T, Long> idExtractor) {
+        Map<Long, T> byId = new LinkedHashMap<>();
+        for (T row : rows) {
+            byId.put(idExtractor.apply(row), row);
+        }
+        Map<Long, T> found = new LinkedHashMap<>();
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                found.put(id, row);
+            } else {
+                notFound.add(id);
+            }
+        }
+        return new BatchResult<>(found, notFound);
+    }
+}
@@ -0,0 +1,49 @@
+package ru.hogwarts.school.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+@Service
+public class CacheStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheStatisticsService.class);
+
+    private final CacheManager cacheManager;
+    private final AvatarService avatarService;
+
+    public CacheStatisticsService(CacheManager cacheManager, AvatarService avatarService) {
+        this.cacheManager = cacheManager;
+        this.avatarService = avatarService;
+    }
+
+    public Map<String, Map<String, Object>> getStatistics() {
+        logger.debug("Was invoked method for get cache statistics");
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (String name : new TreeSet<>(cacheManager.getCacheNames())) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+                result.put(name, describe(nativeCache.stats(), nativeCache.estimatedSize()));
+            }
+        }
+        result.put("avatarPreviews", describe(avatarService.getPreviewCacheStats(), avatarService.getPreviewCacheSize()));
+        return result;
+    }
+
+    private Map<String, Object> describe(CacheStats stats, long size) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("hitCount", stats.hitCount());
+        description.put("missCount", stats.missCount());
+        description.put("hitRate", stats.hitRate());
+        description.put("evictionCount", stats.evictionCount());
+        description.put("size", size);
+        return description;
+    }
+}
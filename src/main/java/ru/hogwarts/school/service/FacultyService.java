@@ -2,16 +2,21 @@ package ru.hogwarts.school.service;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import ru.hogwarts.school.DTO.BatchResult;
 import ru.hogwarts.school.DTO.FacultyDTO;
+import ru.hogwarts.school.DTO.KeysetPage;
 import ru.hogwarts.school.DTO.StudentDTO;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.repository.FacultyRepository;
@@ -27,29 +32,58 @@ public class FacultyService {
     }
 
     public Faculty addFaculty(Faculty faculty) {
-        logger.info("Was invoked method for create faculty");
+        logger.debug("Was invoked method for create faculty");
         return facultyRepository.save(faculty);
     }
 
-    public Faculty findFaculty(long id) {
+    @Cacheable(cacheNames = "faculties", key = "#id")
+    public FacultyDTO findFaculty(long id) {
         logger.debug("Was invoked method for find faculty with id {}", id);
-        return facultyRepository.findById(id)
+        return facultyRepository.findDtoById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Faculty not found"));
     }
 
+    public FacultyDTO findFacultyWithStudents(long id) {
+        logger.debug("Was invoked method for find faculty with students, id {}", id);
+        return facultyRepository.findWithStudentsById(id)
+                .map(this::convertToDto)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Faculty not found"));
+    }
+
+    public BatchResult<FacultyDTO> findFaculties(Collection<Long> ids) {
+        logger.debug("Was invoked method for find faculties by ids {}", ids);
+        List<Long> distinctIds = BatchLookups.distinctIds(ids);
+        return BatchLookups.toResult(distinctIds, facultyRepository.findDtosByIdIn(distinctIds), FacultyDTO::getId);
+    }
+
+    public List<FacultyDTO> findFacultiesWithStudents(Collection<Long> ids) {
+        logger.debug("Was invoked method for find faculties with students, ids {}", ids);
+        return facultyRepository.findAllWithStudentsByIdIn(BatchLookups.distinctIds(ids)).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "faculties", key = "#faculty.id"),
+            @CacheEvict(cacheNames = "students", allEntries = true)
+    })
     public Faculty editFaculty(Faculty faculty) {
-        logger.info("Was invoked method for update faculty with id {}", faculty.getId());
+        logger.debug("Was invoked method for update faculty with id {}", faculty.getId());
         return facultyRepository.save(faculty);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "faculties", key = "#id"),
+            @CacheEvict(cacheNames = "students", allEntries = true)
+    })
     public void deleteFaculty(long id) {
-        logger.info("Was invoked method for delete faculty with id {}", id);
+        logger.debug("Was invoked method for delete faculty with id {}", id);
         facultyRepository.deleteById(id);
     }
 
     public Collection<Faculty> findByColorOrName(String part) {
         logger.debug("Was invoked method for find faculty by color or name with part {}", part);
-        return facultyRepository.findByNameContainingIgnoreCaseOrColorContainingIgnoreCase(part, part);
+        return facultyRepository.searchByNameOrColor(part);
     }
 
     public Collection<Faculty> findAll() {
@@ -57,12 +91,18 @@ public class FacultyService {
         return Collections.unmodifiableCollection(facultyRepository.findAll());
     }
 
+    public KeysetPage<FacultyDTO> getFacultiesPage(String cursor, Long after, int limit) {
+        logger.debug("Was invoked method for get faculties page after cursor {} / id {}", cursor, after);
+        long afterId = KeysetPages.startAfter(cursor, after);
+        List<FacultyDTO> rows = facultyRepository.findPageAfter(afterId, KeysetPages.fetchLimit(limit));
+        return KeysetPages.toPage(rows, limit, FacultyDTO::getId);
+    }
+
     public String getLongestFacultyName() {
-        return facultyRepository.findAll().stream()
-                .map(Faculty::getName)
-                .max(Comparator.comparingInt(String::length))
+        logger.debug("Was invoked method for get longest faculty name");
+        return facultyRepository.findNamesByLengthDesc(Limit.of(1)).stream()
+                .findFirst()
                 .orElse("No faculties");
-
     }
 
     public FacultyDTO convertToDto(Faculty faculty) {
@@ -0,0 +1,273 @@
+package ru.hogwarts.school.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+@Component
+@ConditionalOnProperty(name = "avatars.store", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemAvatarStore implements AvatarStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSystemAvatarStore.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path root;
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> buffers;
+    private final Map<Path, Integer> pins = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public FileSystemAvatarStore(@Value("${avatars.dir.path}") String avatarsDir,
+                                 @Value("${avatars.upload.buffer-size:64KB}") DataSize bufferSize,
+                                 @Value("${avatars.upload.pooled-buffers:16}") int pooledBuffers) {
+        this.root = Path.of(avatarsDir);
+        this.bufferSize = (int) bufferSize.toBytes();
+        this.buffers = new ArrayBlockingQueue<>(pooledBuffers);
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public StoredAvatar store(InputStream content, String extension) throws IOException {
+        Files.createDirectories(root);
+        Path tempFile = Files.createTempFile(root, "upload-", ".tmp");
+        ByteBuffer buffer = acquireBuffer();
+        try {
+            MessageDigest digest = sha256();
+            String mediaType = null;
+            long size = 0;
+
+            try (ReadableByteChannel in = Channels.newChannel(content);
+                 FileChannel out = FileChannel.open(tempFile, WRITE)) {
+                boolean eof = false;
+                while (!eof) {
+                    while (buffer.hasRemaining() && !eof) {
+                        eof = in.read(buffer) == -1;
+                    }
+                    buffer.flip();
+                    if (size == 0) {
+                        mediaType = sniffMediaType(buffer);
+                    }
+                    size += buffer.remaining();
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                out.force(true);
+            }
+
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(contentHash, extension);
+            ReentrantLock lock = lockFor(target);
+            lock.lock();
+            try {
+                if (Files.exists(target)) {
+                    logger.debug("Avatar with hash {} is already stored, skipping write", contentHash);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(tempFile, target, ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        logger.debug("Avatar with hash {} was stored by a concurrent upload", contentHash);
+                    }
+                }
+                pins.merge(target, 1, Integer::sum);
+            } finally {
+                lock.unlock();
+            }
+            return new StoredAvatar(target.toString(), contentHash, size, mediaType);
+        } finally {
+            releaseBuffer(buffer);
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        buffer.clear();
+        buffers.offer(buffer);
+    }
+
+    @Override
+    public byte[] read(String location) throws IOException {
+        return Files.readAllBytes(Path.of(location));
+    }
+
+    @Override
+    public Resource load(String location) {
+        return new FileSystemResource(Path.of(location));
+    }
+
+    @Override
+    public void storeVariant(String location, String variant, byte[] data) throws IOException {
+        Path target = variantPath(location, variant);
+        Path tempFile = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+        try {
+            Files.write(tempFile, data);
+            Files.move(tempFile, target, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public Optional<Resource> loadVariant(String location, String variant) {
+        Path path = variantPath(location, variant);
+        return Files.exists(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+    }
+
+    @Override
+    public void delete(String location) throws IOException {
+        logger.debug("Deleting avatar file {}", location);
+        Path path = Path.of(location);
+        try (DirectoryStream<Path> variants = Files.newDirectoryStream(path.getParent(), baseName(path) + "-*")) {
+            for (Path variant : variants) {
+                Files.deleteIfExists(variant);
+            }
+        } catch (NoSuchFileException e) {
+            logger.debug("Avatar directory for {} no longer exists", location);
+        }
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public void retain(String location) {
+        Path path = Path.of(location);
+        ReentrantLock lock = lockFor(path);
+        lock.lock();
+        try {
+            pins.merge(path, 1, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void release(String location) {
+        Path path = Path.of(location);
+        ReentrantLock lock = lockFor(path);
+        lock.lock();
+        try {
+            pins.computeIfPresent(path, (key, count) -> count == 1 ? null : count - 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteIfUnreferenced(String location, BooleanSupplier referenced) throws IOException {
+        Path path = Path.of(location);
+        ReentrantLock lock = lockFor(path);
+        lock.lock();
+        try {
+            if (pins.containsKey(path) || referenced.getAsBoolean()) {
+                logger.debug("Avatar file {} is still referenced, keeping it", location);
+                return false;
+            }
+            delete(location);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(Path path) {
+        return locks[Math.floorMod(path.hashCode(), locks.length)];
+    }
+
+    private Path variantPath(String location, String variant) {
+        Path path = Path.of(location);
+        return path.resolveSibling(baseName(path) + "-" + variant);
+    }
+
+    private String baseName(Path path) {
+        String fileName = path.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    private Path resolve(String contentHash, String extension) {
+        String suffix = extension.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+        String fileName = suffix.isEmpty() ? contentHash : contentHash + "." + suffix;
+        return root.resolve(contentHash.substring(0, 2)).resolve(fileName);
+    }
+
+    private static String sniffMediaType(ByteBuffer head) {
+        if (startsWith(head, 0, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(head, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(head, 0, 'R', 'I', 'F', 'F') && startsWith(head, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        if (startsWith(head, 0, 'B', 'M')) {
+            return "image/bmp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(ByteBuffer head, int offset, int... signature) {
+        if (head.remaining() < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((head.get(head.position() + offset + i) & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
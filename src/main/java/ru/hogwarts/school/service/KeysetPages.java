@@ -0,0 +1,58 @@
+package ru.hogwarts.school.service;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import ru.hogwarts.school.DTO.KeysetPage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+final class KeysetPages {
+
+    static final int MAX_LIMIT = 500;
+
+    private static final String TOKEN_PREFIX = "id:";
+
+    private KeysetPages() {
+    }
+
+    static long startAfter(String cursor, Long after) {
+        if (cursor == null) {
+            return after != null ? after : 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(TOKEN_PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return Long.parseLong(decoded.substring(TOKEN_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor " + cursor);
+        }
+    }
+
+    static Limit fetchLimit(int limit) {
+        return Limit.of(pageSize(limit) + 1);
+    }
+
+    static <T> KeysetPage<T> toPage(List<T> rows, int limit, ToLongFunction<T> idExtractor) {
+        int pageSize = pageSize(limit);
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new KeysetPage<>(List.copyOf(items), encode(idExtractor.applyAsLong(items.get(pageSize - 1))));
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    private static String encode(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((TOKEN_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
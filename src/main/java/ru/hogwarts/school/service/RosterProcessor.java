@@ -0,0 +1,151 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Component
+public class RosterProcessor implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RosterProcessor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final LongAdder submittedChunks = new LongAdder();
+    private final LongAdder completedChunks = new LongAdder();
+    private final LongAdder rejectedChunks = new LongAdder();
+
+    public RosterProcessor(@Value("${students.roster.workers:4}") int workers,
+                           @Value("${students.roster.queue-capacity:32}") int queueCapacity,
+                           @Value("${students.roster.timeout:PT10S}") Duration timeout,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(virtualThreads));
+        this.timeout = timeout;
+    }
+
+    private static ThreadFactory threadFactory(boolean virtualThreads) {
+        return virtualThreads
+                ? new VirtualThreadTaskExecutor("roster-").getVirtualThreadFactory()
+                : new CustomizableThreadFactory("roster-");
+    }
+
+    public <T, R> List<R> processInOrder(List<T> items, int chunkSize, Function<T, R> task) {
+        List<R> results = new ArrayList<>(items.size());
+        for (CompletableFuture<List<R>> chunk : submit(items, chunkSize, task)) {
+            results.addAll(await(chunk));
+        }
+        return results;
+    }
+
+    public <T, R> void processAsCompleted(List<T> items, int chunkSize, Function<T, R> task, Consumer<List<R>> onChunk) {
+        List<CompletableFuture<Void>> chunks = submit(items, chunkSize, task).stream()
+                .map(chunk -> chunk.thenAccept(onChunk))
+                .toList();
+        await(CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)));
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("poolSize", executor.getPoolSize());
+        statistics.put("activeCount", executor.getActiveCount());
+        statistics.put("queueSize", executor.getQueue().size());
+        statistics.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        statistics.put("submittedChunks", submittedChunks.sum());
+        statistics.put("completedChunks", completedChunks.sum());
+        statistics.put("rejectedChunks", rejectedChunks.sum());
+        return statistics;
+    }
+
+    private <T, R> List<CompletableFuture<List<R>>> submit(List<T> items, int chunkSize, Function<T, R> task) {
+        List<CompletableFuture<List<R>>> chunks = new ArrayList<>();
+        int totalChunks = (items.size() + chunkSize - 1) / chunkSize;
+        try {
+            for (int from = 0; from < items.size(); from += chunkSize) {
+                List<T> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+                chunks.add(CompletableFuture.supplyAsync(() -> run(chunk, task), executor));
+                submittedChunks.increment();
+            }
+        } catch (RejectedExecutionException e) {
+            rejectedChunks.add(totalChunks - chunks.size());
+            chunks.forEach(chunk -> chunk.cancel(false));
+            logger.warn("Roster executor is saturated, rejecting {} items", items.size());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Roster processing is busy, retry later");
+        }
+        return chunks;
+    }
+
+    private <T, R> List<R> run(List<T> chunk, Function<T, R> task) {
+        try {
+            List<R> buffer = new ArrayList<>(chunk.size());
+            for (T item : chunk) {
+                buffer.add(task.apply(item));
+            }
+            return buffer;
+        } finally {
+            completedChunks.increment();
+        }
+    }
+
+    private <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Roster processing timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Roster processing was interrupted");
+        } catch (ExecutionException | CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, "roster", Tags.empty()).bindTo(registry);
+        FunctionCounter.builder("roster.chunks.submitted", submittedChunks, LongAdder::sum)
+                .description("Roster chunks accepted by the executor")
+                .register(registry);
+        FunctionCounter.builder("roster.chunks.completed", completedChunks, LongAdder::sum)
+                .description("Roster chunks that finished running")
+                .register(registry);
+        FunctionCounter.builder("roster.chunks.rejected", rejectedChunks, LongAdder::sum)
+                .description("Roster chunks not run because the executor was saturated")
+                .register(registry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,20 @@
+package ru.hogwarts.school.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+public enum SearchMode {
+    PREFIX,
+    SUBSTRING,
+    FUZZY;
+
+    public static SearchMode of(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported search mode " + value);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.hogwarts.school.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import ru.hogwarts.school.DTO.FacultyDTO;
+import ru.hogwarts.school.DTO.SearchHitDTO;
+import ru.hogwarts.school.DTO.StudentDTO;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+@Service
+public class SearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    private static final int MAX_LIMIT = 50;
+
+    private final StudentRepository studentRepository;
+    private final FacultyRepository facultyRepository;
+
+    public SearchService(StudentRepository studentRepository, FacultyRepository facultyRepository) {
+        this.studentRepository = studentRepository;
+        this.facultyRepository = facultyRepository;
+    }
+
+    public List<SearchHitDTO<StudentDTO>> searchStudents(String query, SearchMode mode, int limit) {
+        logger.debug("Was invoked method for search students by '{}' in {} mode", query, mode);
+        String normalized = normalize(query);
+        int pageSize = pageSize(limit);
+
+        List<StudentRepository.NameSearchRow> rows = mode == SearchMode.FUZZY
+                ? studentRepository.searchByNameSimilarity(normalized, pageSize)
+                : studentRepository.searchByNamePattern(normalized, pattern(normalized, mode), pageSize);
+
+        return rows.stream()
+                .map(row -> new SearchHitDTO<>(new StudentDTO(row.getId(), row.getName(), row.getAge()), row.getScore()))
+                .collect(Collectors.toList());
+    }
+
+    public List<SearchHitDTO<FacultyDTO>> searchFaculties(String query, SearchMode mode, int limit) {
+        logger.debug("Was invoked method for search faculties by '{}' in {} mode", query, mode);
+        String normalized = normalize(query);
+        int pageSize = pageSize(limit);
+
+        List<FacultyRepository.NameColorSearchRow> rows = mode == SearchMode.FUZZY
+                ? facultyRepository.searchBySimilarity(normalized, pageSize)
+                : facultyRepository.searchByPattern(normalized, pattern(normalized, mode), pageSize);
+
+        return rows.stream()
+                .map(row -> new SearchHitDTO<>(new FacultyDTO(row.getId(), row.getName(), row.getColor()), row.getScore()))
+                .collect(Collectors.toList());
+    }
+
+    private String normalize(String query) {
+        String normalized = query == null ? "" : query.strip().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query must not be empty");
+        }
+        return normalized;
+    }
+
+    private String pattern(String query, SearchMode mode) {
+        String escaped = query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return mode == SearchMode.PREFIX ? escaped + "%" : "%" + escaped + "%";
+    }
+
+    private int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -0,0 +1,260 @@
+package ru.hogwarts.school.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.DTO.StudentAnalyticsDTO;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+@Service
+public class StudentAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentAnalyticsService.class);
+
+    private static final int MAX_AGE_SPAN = 1024;
+    private static final int NO_FACULTY = 0;
+
+    private final StudentRepository studentRepository;
+    private final FacultyRepository facultyRepository;
+    private final int leafSize;
+
+    public StudentAnalyticsService(StudentRepository studentRepository, FacultyRepository facultyRepository,
+                                   @Value("${students.analytics.leaf-size:8192}") int leafSize) {
+        this.studentRepository = studentRepository;
+        this.facultyRepository = facultyRepository;
+        this.leafSize = leafSize;
+    }
+
+    @Transactional(readOnly = true)
+    public StudentAnalyticsDTO analyze() {
+        logger.debug("Was invoked method for student analytics");
+        List<Faculty> faculties = new ArrayList<>(facultyRepository.findAll());
+        Map<Long, Integer> groupByFacultyId = new HashMap<>();
+        for (int i = 0; i < faculties.size(); i++) {
+            groupByFacultyId.put(faculties.get(i).getId(), i + 1);
+        }
+
+        Columns columns = load(groupByFacultyId);
+        int groups = faculties.size() + 1;
+        int span = columns.size == 0 ? 1 : Math.min(columns.maxAge - columns.minAge + 1, MAX_AGE_SPAN);
+        Partial total = ForkJoinPool.commonPool()
+                .invoke(new AggregateTask(columns, 0, columns.size, groups, span, leafSize));
+        logger.debug("Aggregated {} students in {} faculty groups", columns.size, groups);
+
+        long[] overallHistogram = new long[span];
+        long overallSum = 0;
+        int overallMin = Integer.MAX_VALUE;
+        int overallMax = Integer.MIN_VALUE;
+        for (int group = 0; group < groups; group++) {
+            for (int bucket = 0; bucket < span; bucket++) {
+                overallHistogram[bucket] += total.histograms[group][bucket];
+            }
+            overallSum += total.ageSums[group];
+            overallMin = Math.min(overallMin, total.minAges[group]);
+            overallMax = Math.max(overallMax, total.maxAges[group]);
+        }
+
+        NavigableMap<Integer, Long> ageDistribution = new TreeMap<>();
+        for (int bucket = 0; bucket < span; bucket++) {
+            if (overallHistogram[bucket] > 0) {
+                ageDistribution.put(columns.minAge + bucket, overallHistogram[bucket]);
+            }
+        }
+
+        List<StudentAnalyticsDTO.FacultySummary> facultySummaries = new ArrayList<>(groups);
+        for (int i = 0; i < faculties.size(); i++) {
+            Faculty faculty = faculties.get(i);
+            facultySummaries.add(new StudentAnalyticsDTO.FacultySummary(faculty.getId(), faculty.getName(),
+                    summarize(total.histograms[i + 1], total.counts[i + 1], total.ageSums[i + 1],
+                            total.minAges[i + 1], total.maxAges[i + 1], columns.minAge)));
+        }
+        if (total.counts[NO_FACULTY] > 0) {
+            facultySummaries.add(new StudentAnalyticsDTO.FacultySummary(null, null,
+                    summarize(total.histograms[NO_FACULTY], total.counts[NO_FACULTY], total.ageSums[NO_FACULTY],
+                            total.minAges[NO_FACULTY], total.maxAges[NO_FACULTY], columns.minAge)));
+        }
+
+        StudentAnalyticsDTO.NameLengthSummary nameLength = total.nameCount == 0
+                ? new StudentAnalyticsDTO.NameLengthSummary(0.0, null, null)
+                : new StudentAnalyticsDTO.NameLengthSummary((double) total.nameLengthSum / total.nameCount,
+                total.minNameLength, total.maxNameLength);
+
+        return new StudentAnalyticsDTO(
+                columns.size,
+                summarize(overallHistogram, columns.size, overallSum, overallMin, overallMax, columns.minAge),
+                nameLength,
+                ageDistribution,
+                facultySummaries);
+    }
+
+    private Columns load(Map<Long, Integer> groupByFacultyId) {
+        Columns columns = new Columns();
+        try (Stream<Object[]> rows = studentRepository.streamAnalyticsColumns()) {
+            rows.forEach(row -> columns.add(
+                    ((Number) row[0]).intValue(),
+                    row[1] == null ? -1 : ((Number) row[1]).intValue(),
+                    row[2] == null ? NO_FACULTY : groupByFacultyId.getOrDefault(((Number) row[2]).longValue(), NO_FACULTY)));
+        }
+        return columns;
+    }
+
+    private static StudentAnalyticsDTO.AgeSummary summarize(long[] histogram, long count, long sum,
+                                                            int min, int max, int minAge) {
+        if (count == 0) {
+            return new StudentAnalyticsDTO.AgeSummary(0, 0.0, null, null, null, null, null);
+        }
+        return new StudentAnalyticsDTO.AgeSummary(count, (double) sum / count, min, max,
+                percentile(histogram, count, 0.50, minAge, max),
+                percentile(histogram, count, 0.90, minAge, max),
+                percentile(histogram, count, 0.99, minAge, max));
+    }
+
+    private static int percentile(long[] histogram, long count, double percentile, int minAge, int max) {
+        long rank = (long) Math.ceil(percentile * count);
+        long seen = 0;
+        for (int bucket = 0; bucket < histogram.length; bucket++) {
+            seen += histogram[bucket];
+            if (seen >= rank) {
+                return bucket == histogram.length - 1 ? max : minAge + bucket;
+            }
+        }
+        return max;
+    }
+
+    private static class Columns {
+        private int[] ages = new int[1024];
+        private int[] nameLengths = new int[1024];
+        private int[] groups = new int[1024];
+        private int size;
+        private int minAge = Integer.MAX_VALUE;
+        private int maxAge = Integer.MIN_VALUE;
+
+        private void add(int age, int nameLength, int group) {
+            if (size == ages.length) {
+                int capacity = size * 2;
+                ages = Arrays.copyOf(ages, capacity);
+                nameLengths = Arrays.copyOf(nameLengths, capacity);
+                groups = Arrays.copyOf(groups, capacity);
+            }
+            ages[size] = age;
+            nameLengths[size] = nameLength;
+            groups[size] = group;
+            size++;
+            minAge = Math.min(minAge, age);
+            maxAge = Math.max(maxAge, age);
+        }
+    }
+
+    private static class Partial {
+        private final long[][] histograms;
+        private final long[] counts;
+        private final long[] ageSums;
+        private final int[] minAges;
+        private final int[] maxAges;
+        private long nameCount;
+        private long nameLengthSum;
+        private int minNameLength = Integer.MAX_VALUE;
+        private int maxNameLength = Integer.MIN_VALUE;
+
+        private Partial(int groups, int span) {
+            histograms = new long[groups][span];
+            counts = new long[groups];
+            ageSums = new long[groups];
+            minAges = new int[groups];
+            maxAges = new int[groups];
+            Arrays.fill(minAges, Integer.MAX_VALUE);
+            Arrays.fill(maxAges, Integer.MIN_VALUE);
+        }
+
+        private Partial merge(Partial other) {
+            for (int group = 0; group < counts.length; group++) {
+                long[] histogram = histograms[group];
+                long[] otherHistogram = other.histograms[group];
+                for (int bucket = 0; bucket < histogram.length; bucket++) {
+                    histogram[bucket] += otherHistogram[bucket];
+                }
+                counts[group] += other.counts[group];
+                ageSums[group] += other.ageSums[group];
+                minAges[group] = Math.min(minAges[group], other.minAges[group]);
+                maxAges[group] = Math.max(maxAges[group], other.maxAges[group]);
+            }
+            nameCount += other.nameCount;
+            nameLengthSum += other.nameLengthSum;
+            minNameLength = Math.min(minNameLength, other.minNameLength);
+            maxNameLength = Math.max(maxNameLength, other.maxNameLength);
+            return this;
+        }
+    }
+
+    private static class AggregateTask extends RecursiveTask<Partial> {
+        private final Columns columns;
+        private final int from;
+        private final int to;
+        private final int groups;
+        private final int span;
+        private final int leafSize;
+
+        private AggregateTask(Columns columns, int from, int to, int groups, int span, int leafSize) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+            this.groups = groups;
+            this.span = span;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= leafSize) {
+                return aggregate();
+            }
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(columns, from, middle, groups, span, leafSize);
+            AggregateTask right = new AggregateTask(columns, middle, to, groups, span, leafSize);
+            left.fork();
+            Partial rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+
+        private Partial aggregate() {
+            Partial partial = new Partial(groups, span);
+            int[] ages = columns.ages;
+            int[] nameLengths = columns.nameLengths;
+            int[] studentGroups = columns.groups;
+            int minAge = columns.minAge;
+            for (int i = from; i < to; i++) {
+                int group = studentGroups[i];
+                int age = ages[i];
+                partial.histograms[group][Math.min(age - minAge, span - 1)]++;
+                partial.counts[group]++;
+                partial.ageSums[group] += age;
+                partial.minAges[group] = Math.min(partial.minAges[group], age);
+                partial.maxAges[group] = Math.max(partial.maxAges[group], age);
+
+                int nameLength = nameLengths[i];
+                if (nameLength >= 0) {
+                    partial.nameCount++;
+                    partial.nameLengthSum += nameLength;
+                    partial.minNameLength = Math.min(partial.minNameLength, nameLength);
+                    partial.maxNameLength = Math.max(partial.maxNameLength, nameLength);
+                }
+            }
+            return partial;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.DTO.StudentExportRow;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class StudentExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentExportService.class);
+
+    private final StudentRepository studentRepository;
+    private final ObjectMapper objectMapper;
+
+    public StudentExportService(StudentRepository studentRepository, ObjectMapper objectMapper) {
+        this.studentRepository = studentRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public void exportStudents(RosterFormat format, boolean withFaculty, OutputStream out) throws IOException {
+        logger.info("Was invoked method for export students as {} with faculty = {}", format, withFaculty);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long count = 0;
+
+        try (Stream<StudentExportRow> rows = withFaculty
+                ? studentRepository.streamExportRowsWithFaculty()
+                : studentRepository.streamExportRows()) {
+            Iterator<StudentExportRow> iterator = rows.iterator();
+            if (format == RosterFormat.NDJSON) {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)
+                        .setRootValueSeparator(null);
+                while (iterator.hasNext()) {
+                    writeJson(generator, iterator.next(), withFaculty);
+                    count++;
+                }
+                generator.flush();
+            } else {
+                writer.write(withFaculty ? "id,name,age,faculty\n" : "id,name,age\n");
+                while (iterator.hasNext()) {
+                    writeCsv(writer, iterator.next(), withFaculty);
+                    count++;
+                }
+            }
+        }
+
+        writer.flush();
+        logger.debug("Exported {} students", count);
+    }
+
+    private void writeJson(JsonGenerator generator, StudentExportRow row, boolean withFaculty) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", row.getId());
+        generator.writeStringField("name", row.getName());
+        generator.writeNumberField("age", row.getAge());
+        if (withFaculty) {
+            generator.writeStringField("faculty", row.getFacultyName());
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private void writeCsv(Writer writer, StudentExportRow row, boolean withFaculty) throws IOException {
+        writer.write(Long.toString(row.getId()));
+        writer.write(',');
+        writer.write(escapeCsv(row.getName()));
+        writer.write(',');
+        writer.write(Integer.toString(row.getAge()));
+        if (withFaculty) {
+            writer.write(',');
+            writer.write(escapeCsv(row.getFacultyName()));
+        }
+        writer.write('\n');
+    }
+
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,263 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import ru.hogwarts.school.DTO.StudentImportReport;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class StudentImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentImportService.class);
+
+    private static final int MIN_AGE_EXCLUSIVE = 16;
+
+    private final StudentRepository studentRepository;
+    private final FacultyRepository facultyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final StudentStatistics studentStatistics;
+    private final StudentNameIndex studentNameIndex;
+    private final int batchSize;
+
+    public StudentImportService(StudentRepository studentRepository, FacultyRepository facultyRepository,
+                                TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                                StudentStatistics studentStatistics, StudentNameIndex studentNameIndex,
+                                @Value("${students.import.batch-size:500}") int batchSize) {
+        this.studentRepository = studentRepository;
+        this.facultyRepository = facultyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.studentStatistics = studentStatistics;
+        this.studentNameIndex = studentNameIndex;
+        this.batchSize = batchSize;
+    }
+
+    public StudentImportReport importStudents(InputStream body, RosterFormat format) throws IOException {
+        logger.debug("Was invoked method for import students from {}", format);
+        StudentImportReport report = new StudentImportReport();
+        Set<String> seenNames = new HashSet<>();
+        List<ImportRow> chunk = new ArrayList<>(batchSize);
+        Map<String, Integer> header = null;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            if (format == RosterFormat.CSV && header == null) {
+                header = parseCsvHeader(line);
+                continue;
+            }
+
+            ImportRow row;
+            try {
+                row = format == RosterFormat.CSV ? parseCsvRow(lineNumber, line, header) : parseJsonRow(lineNumber, line);
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                report.addFailure(lineNumber, e.getMessage());
+                continue;
+            }
+
+            String error = validate(row, seenNames);
+            if (error != null) {
+                report.addFailure(lineNumber, error);
+                continue;
+            }
+
+            chunk.add(row);
+            if (chunk.size() == batchSize) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+
+        logger.info("Imported {} students, {} rows failed", report.getImported(), report.getFailed());
+        return report;
+    }
+
+    private String validate(ImportRow row, Set<String> seenNames) {
+        if (row.name() == null || row.name().isBlank()) {
+            return "Name is required";
+        }
+        if (row.age() <= MIN_AGE_EXCLUSIVE) {
+            return "Age must be greater than " + MIN_AGE_EXCLUSIVE;
+        }
+        if (!seenNames.add(row.name())) {
+            return "Duplicate name " + row.name() + " in import";
+        }
+        return null;
+    }
+
+    private void importChunk(List<ImportRow> chunk, StudentImportReport report) {
+        Set<String> existingNames = studentRepository.findExistingNames(
+                chunk.stream().map(ImportRow::name).collect(Collectors.toList()));
+        Set<Long> facultyIds = chunk.stream().map(ImportRow::facultyId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> existingFacultyIds = facultyIds.isEmpty() ? Set.of() : facultyRepository.findExistingIds(facultyIds);
+
+        List<ImportRow> rows = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (existingNames.contains(row.name())) {
+                report.addFailure(row.line(), "Student with name " + row.name() + " already exists");
+            } else if (row.facultyId() != null && !existingFacultyIds.contains(row.facultyId())) {
+                report.addFailure(row.line(), "Not found faculty with id = " + row.facultyId());
+            } else {
+                rows.add(row);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.execute(status -> insert(rows)).forEach(this::onInserted);
+            report.addImported(rows.size());
+        } catch (DataAccessException | TransactionException e) {
+            logger.warn("Batch insert of {} students failed, retrying row by row", rows.size(), e);
+            for (ImportRow row : rows) {
+                try {
+                    transactionTemplate.execute(status -> insert(List.of(row))).forEach(this::onInserted);
+                    report.addImported(1);
+                } catch (DataAccessException | TransactionException rowException) {
+                    report.addFailure(row.line(), NestedExceptionUtils.getMostSpecificCause(rowException).getMessage());
+                }
+            }
+        }
+    }
+
+    private List<Student> insert(List<ImportRow> rows) {
+        List<Student> students = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            Student student = new Student();
+            student.setName(row.name());
+            student.setAge(row.age());
+            if (row.facultyId() != null) {
+                student.setFaculty(facultyRepository.getReferenceById(row.facultyId()));
+            }
+            students.add(student);
+        }
+        return studentRepository.saveAllAndFlush(students);
+    }
+
+    private void onInserted(Student student) {
+        studentStatistics.onAdded(student.getAge());
+        studentNameIndex.onSaved(student.getId(), student.getName(), student.getAge());
+    }
+
+    private ImportRow parseJsonRow(long line, String json) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(json);
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        JsonNode age = node.path("age");
+        if (!age.canConvertToInt()) {
+            throw new IllegalArgumentException("Age must be an integer");
+        }
+        JsonNode facultyId = node.path("facultyId");
+        return new ImportRow(line,
+                node.path("name").isTextual() ? node.get("name").asText().strip() : null,
+                age.asInt(),
+                facultyId.isIntegralNumber() ? facultyId.asLong() : null);
+    }
+
+    private Map<String, Integer> parseCsvHeader(String line) {
+        Map<String, Integer> header = new HashMap<>();
+        List<String> columns;
+        try {
+            columns = parseCsvLine(line);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid CSV header: " + e.getMessage());
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).strip().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        if (!header.containsKey("name") || !header.containsKey("age")) {
+            logger.error("Rejected student import with CSV header {}", line);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header must contain name and age columns");
+        }
+        return header;
+    }
+
+    private ImportRow parseCsvRow(long line, String csv, Map<String, Integer> header) {
+        List<String> values = parseCsvLine(csv);
+        String name = column(values, header.get("name"));
+        String age = column(values, header.get("age"));
+        String facultyId = column(values, header.get("facultyid"));
+        try {
+            return new ImportRow(line,
+                    name,
+                    Integer.parseInt(age),
+                    facultyId == null || facultyId.isEmpty() ? null : Long.valueOf(facultyId));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+    }
+
+    private String column(List<String> values, Integer index) {
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        return values.get(index).strip();
+    }
+
+    private List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private record ImportRow(long line, String name, int age, Long facultyId) {
+    }
+}
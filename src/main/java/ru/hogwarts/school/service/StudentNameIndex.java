@@ -0,0 +1,127 @@
+package ru.hogwarts.school.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.DTO.StudentDTO;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+@Component
+public class StudentNameIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentNameIndex.class);
+
+    private static final char ID_SEPARATOR = '\u0000';
+    private static final char PREFIX_END = '\uFFFF';
+    private static final char FIRST_CYRILLIC = '\u0430';
+    private static final String[] CYRILLIC_TO_LATIN = {
+            "a", "b", "v", "g", "d", "e", "zh", "z", "i", "i", "k", "l", "m", "n", "o", "p",
+            "r", "s", "t", "u", "f", "kh", "ts", "ch", "sh", "shch", "", "y", "", "e", "yu", "ya"
+    };
+
+    private final StudentRepository studentRepository;
+
+    private volatile ConcurrentNavigableMap<String, StudentDTO> byName = new ConcurrentSkipListMap<>();
+    private volatile Map<Long, String> keysById = new ConcurrentHashMap<>();
+    private long version;
+
+    public StudentNameIndex(StudentRepository studentRepository) {
+        this.studentRepository = studentRepository;
+    }
+
+    public synchronized void onSaved(long id, String name, int age) {
+        String previousKey = keysById.get(id);
+        String key = key(name, id);
+        byName.put(key, new StudentDTO(id, name, age));
+        keysById.put(id, key);
+        if (previousKey != null && !previousKey.equals(key)) {
+            byName.remove(previousKey);
+        }
+        version++;
+    }
+
+    public synchronized void onRemoved(long id) {
+        String key = keysById.remove(id);
+        if (key != null) {
+            byName.remove(key);
+        }
+        version++;
+    }
+
+    public List<StudentDTO> findByPrefix(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        List<StudentDTO> result = new ArrayList<>(Math.min(limit, 64));
+        for (StudentDTO student : byName.subMap(normalized, normalized + PREFIX_END).values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(student);
+        }
+        return result;
+    }
+
+    public int size() {
+        return keysById.size();
+    }
+
+    @Scheduled(fixedDelayString = "${students.name-index.reload-interval:PT10M}")
+    public void reload() {
+        long startVersion;
+        synchronized (this) {
+            startVersion = version;
+        }
+
+        ConcurrentNavigableMap<String, StudentDTO> freshByName = new ConcurrentSkipListMap<>();
+        Map<Long, String> freshKeys = new HashMap<>();
+        for (StudentDTO student : studentRepository.findAllNames()) {
+            String key = key(student.getName(), student.getId());
+            freshByName.put(key, student);
+            freshKeys.put(student.getId(), key);
+        }
+
+        synchronized (this) {
+            if (version != startVersion) {
+                logger.debug("Students changed during name index reload, keeping incremental index until next run");
+                return;
+            }
+            byName = freshByName;
+            keysById = new ConcurrentHashMap<>(freshKeys);
+        }
+        logger.debug("Reloaded student name index with {} names", freshKeys.size());
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.strip(), Normalizer.Form.NFKD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = Character.toLowerCase(decomposed.charAt(i));
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            int cyrillic = c - FIRST_CYRILLIC;
+            if (cyrillic >= 0 && cyrillic < CYRILLIC_TO_LATIN.length) {
+                folded.append(CYRILLIC_TO_LATIN[cyrillic]);
+            } else {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    private static String key(String name, long id) {
+        return normalize(name) + ID_SEPARATOR + id;
+    }
+}
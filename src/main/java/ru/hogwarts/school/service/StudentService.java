@@ -3,11 +3,23 @@ package ru.hogwarts.school.service;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import ru.hogwarts.school.DTO.BatchResult;
+import ru.hogwarts.school.DTO.FacultyDTO;
+import ru.hogwarts.school.DTO.KeysetPage;
+import ru.hogwarts.school.DTO.StudentDTO;
+import ru.hogwarts.school.DTO.StudentDetailsDTO;
+import ru.hogwarts.school.DTO.StudentStatisticsDTO;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.StudentRepository;
 
@@ -16,59 +28,119 @@ public class StudentService {
 
     private static final Logger logger = LoggerFactory.getLogger(StudentService.class);
 
+    private static final int PRINT_COUNT = 6;
+    private static final int PRINT_CHUNK_SIZE = 2;
 
-    private StudentRepository studentRepository;
 
-    public StudentService(StudentRepository studentRepository) {
+    private StudentRepository studentRepository;
+    private StudentStatistics studentStatistics;
+    private StudentNameIndex studentNameIndex;
+    private RosterProcessor rosterProcessor;
+    private SingleFlight<Long, Optional<StudentDetailsDTO>> studentLookups;
+
+    public StudentService(StudentRepository studentRepository, StudentStatistics studentStatistics,
+                          StudentNameIndex studentNameIndex, RosterProcessor rosterProcessor,
+                          SingleFlightRegistry singleFlightRegistry) {
         this.studentRepository = studentRepository;
+        this.studentStatistics = studentStatistics;
+        this.studentNameIndex = studentNameIndex;
+        this.rosterProcessor = rosterProcessor;
+        this.studentLookups = singleFlightRegistry.create("students");
     }
 
     public Student addStudent(Student student) {
-        logger.info("Was invoked method for create student");
-        return studentRepository.save(student);
+        logger.debug("Was invoked method for create student");
+        Student saved = studentRepository.save(student);
+        studentStatistics.onAdded(saved.getAge());
+        studentNameIndex.onSaved(saved.getId(), saved.getName(), saved.getAge());
+        return saved;
     }
 
     public Collection<Student> getAllStudents() {
-        logger.info("Was invoked method for get all students");
+        logger.debug("Was invoked method for get all students");
         return studentRepository.findAll();
     }
 
-    public Student findStudent(long id) {
+    public KeysetPage<StudentDTO> getStudentsPage(String cursor, Long after, int limit) {
+        logger.debug("Was invoked method for get students page after cursor {} / id {}", cursor, after);
+        long afterId = KeysetPages.startAfter(cursor, after);
+        List<StudentDTO> rows = studentRepository.findPageAfter(afterId, KeysetPages.fetchLimit(limit));
+        return KeysetPages.toPage(rows, limit, StudentDTO::getId);
+    }
+
+    public List<Student> getFirstStudents(int count) {
+        logger.debug("Was invoked method for get first {} students", count);
+        return studentRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(count));
+    }
+
+    @Cacheable(cacheNames = "students", key = "#id")
+    public StudentDetailsDTO findStudent(long id) {
         logger.debug("Was invoked method for find student by id = {}", id);
-        return studentRepository.findById(id).orElseThrow(() -> {
+        return studentLookups.execute(id, () -> studentRepository.findDetailsById(id)).orElseThrow(() -> {
             logger.error("Not found student with id = {}", id);
             return new RuntimeException("Not found student with id = " + id);
         });
     }
 
+    public BatchResult<StudentDetailsDTO> findStudents(Collection<Long> ids) {
+        logger.debug("Was invoked method for find students by ids {}", ids);
+        List<Long> distinctIds = BatchLookups.distinctIds(ids);
+        return BatchLookups.toResult(distinctIds, studentRepository.findDetailsByIdIn(distinctIds), StudentDetailsDTO::getId);
+    }
+
+    public Optional<FacultyDTO> findStudentFaculty(long id) {
+        logger.debug("Was invoked method for find faculty of student with id = {}", id);
+        return studentRepository.findFacultyByStudentId(id);
+    }
+
+    @CacheEvict(cacheNames = "students", key = "#student.id")
     public Student editStudent(Student student) {
-        logger.info("Was invoked method for edit student by id = {}", student.getId());
-        return studentRepository.save(student);
+        logger.debug("Was invoked method for edit student by id = {}", student.getId());
+        Optional<Integer> previousAge = studentRepository.findAgeById(student.getId());
+        Student saved = studentRepository.save(student);
+        studentLookups.invalidate(student.getId());
+        if (saved != null) {
+            previousAge.ifPresentOrElse(
+                    age -> studentStatistics.onAgeChanged(age, saved.getAge()),
+                    () -> studentStatistics.onAdded(saved.getAge()));
+            studentNameIndex.onSaved(saved.getId(), saved.getName(), saved.getAge());
+        }
+        return saved;
     }
 
+    @CacheEvict(cacheNames = "students", key = "#id")
     public void deleteStudent(long id) {
-        logger.info("Was invoked method for delete student by id = {}", id);
+        logger.debug("Was invoked method for delete student by id = {}", id);
+        Optional<Integer> age = studentRepository.findAgeById(id);
         studentRepository.deleteById(id);
+        studentLookups.invalidate(id);
+        age.ifPresent(studentStatistics::onRemoved);
+        studentNameIndex.onRemoved(id);
     }
 
-    public Collection<Student> findByAge(int age) {
+    public List<StudentDTO> findByAge(int age) {
         logger.debug("Was invoked method for find student by age {}", age);
-        return studentRepository.findByAge(age);
+        return studentRepository.findDtoByAge(age);
     }
 
-    public Collection<Student> findByAgeBetween(int min, int max) {
+    public List<StudentDTO> findByAgeBetween(int min, int max) {
         logger.debug("Was invoked method for find student by age between {} and {}", min, max);
-        return studentRepository.findByAgeBetween(min, max);
+        return studentRepository.findDtoByAgeBetween(min, max);
     }
 
     public int getStudentsCount() {
-        logger.info("Was invoked method for get student count");
-        return studentRepository.countAllStudents();
+        logger.debug("Was invoked method for get student count");
+        return (int) studentStatistics.getCount();
     }
 
     public double getAverageAge() {
-        logger.info("Was invoked method for get student average age");
-        return studentRepository.findAvgAge();
+        logger.debug("Was invoked method for get student average age");
+        return studentStatistics.getAverageAge();
+    }
+
+    public StudentStatisticsDTO getStatistics() {
+        logger.debug("Was invoked method for get student statistics");
+        return studentStatistics.snapshot();
     }
 
     public Collection<Student> getLastFiveStudents() {
@@ -76,27 +148,50 @@ public class StudentService {
         return studentRepository.findLastFiveStudents();
     }
 
-    public List<Student> getStudentsNamesStartingWithA() {
-        logger.info("Was invoked method for get student names starting with A");
+    public List<StudentDTO> findByNamePrefix(String prefix, int limit) {
+        logger.debug("Was invoked method for find students by name prefix '{}'", prefix);
+        return studentNameIndex.findByPrefix(prefix, Math.max(0, limit));
+    }
 
-        return studentRepository.findAll().stream()
-                .filter(student -> student.getName().startsWith("A") || student.getName().startsWith("А")) // rus|eng
-                .collect(Collectors.toList());
+    public List<Student> getStudentsNamesStartingWithA() {
+        logger.debug("Was invoked method for get student names starting with A");
+        List<Long> ids = studentNameIndex.findByPrefix("A", Integer.MAX_VALUE).stream()
+                .filter(student -> student.getName().startsWith("A") || student.getName().startsWith("А")) // eng|rus
+                .map(StudentDTO::getId)
+                .toList();
+        return ids.isEmpty() ? List.of() : studentRepository.findAllById(ids);
     }
 
     public double getAverageAge2() {
         logger.debug("Was invoked method for get student average age");
+        return studentStatistics.getAverageAge();
+    }
 
-        return studentRepository.findAll().stream()
-                .mapToInt(Student::getAge)
-                .average()
-                .orElse(0.0);
+    public List<String> printParallel() {
+        logger.debug("Was invoked method for parallel print");
+        Queue<String> printed = new ConcurrentLinkedQueue<>();
+        rosterProcessor.processAsCompleted(getFirstStudents(PRINT_COUNT), PRINT_CHUNK_SIZE, Student::getName, names -> {
+            print(names);
+            printed.addAll(names);
+        });
+        return List.copyOf(printed);
+    }
+
+    public List<String> printSynchronized() {
+        logger.debug("Was invoked method for synchronized print");
+        List<String> lines = rosterProcessor.processInOrder(getFirstStudents(PRINT_COUNT), PRINT_CHUNK_SIZE, Student::toString);
+        print(lines);
+        return lines;
+    }
 
+    public Map<String, Object> getRosterStatistics() {
+        return rosterProcessor.getStatistics();
     }
 
-    public synchronized void synchronizedPrintStudent(Student student) {
-        logger.debug("Was invoked method for synchronize print");
-        System.out.println(student.toString());
+    private void print(List<String> lines) {
+        if (!lines.isEmpty()) {
+            System.out.println(String.join(System.lineSeparator(), lines));
+        }
     }
 
 
@@ -0,0 +1,100 @@
+package ru.hogwarts.school.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.DTO.StudentStatisticsDTO;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+@Component
+public class StudentStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentStatistics.class);
+
+    private final StudentRepository studentRepository;
+
+    private NavigableMap<Integer, Long> histogram = new TreeMap<>();
+    private long count;
+    private long ageSum;
+    private long version;
+
+    public StudentStatistics(StudentRepository studentRepository) {
+        this.studentRepository = studentRepository;
+    }
+
+    public synchronized void onAdded(int age) {
+        histogram.merge(age, 1L, Long::sum);
+        count++;
+        ageSum += age;
+        version++;
+    }
+
+    public synchronized void onRemoved(int age) {
+        histogram.computeIfPresent(age, (key, total) -> total > 1 ? total - 1 : null);
+        count = Math.max(0, count - 1);
+        ageSum -= age;
+        version++;
+    }
+
+    public synchronized void onAgeChanged(int oldAge, int newAge) {
+        if (oldAge != newAge) {
+            onRemoved(oldAge);
+            onAdded(newAge);
+        }
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getAverageAge() {
+        return count == 0 ? 0.0 : (double) ageSum / count;
+    }
+
+    public synchronized StudentStatisticsDTO snapshot() {
+        return new StudentStatisticsDTO(
+                count,
+                getAverageAge(),
+                histogram.isEmpty() ? null : histogram.firstKey(),
+                histogram.isEmpty() ? null : histogram.lastKey(),
+                Collections.unmodifiableMap(new TreeMap<>(histogram))
+        );
+    }
+
+    @Scheduled(fixedDelayString = "${students.statistics.reconcile-interval:PT5M}")
+    public void reconcile() {
+        long startVersion;
+        synchronized (this) {
+            startVersion = version;
+        }
+
+        NavigableMap<Integer, Long> fresh = new TreeMap<>();
+        long freshCount = 0;
+        long freshSum = 0;
+        for (Object[] row : studentRepository.countByAge()) {
+            int age = ((Number) row[0]).intValue();
+            long total = ((Number) row[1]).longValue();
+            fresh.put(age, total);
+            freshCount += total;
+            freshSum += age * total;
+        }
+
+        synchronized (this) {
+            if (version != startVersion) {
+                logger.debug("Students changed during reconciliation, keeping incremental statistics until next run");
+                return;
+            }
+            if (freshCount != count || freshSum != ageSum) {
+                logger.info("Reconciled student statistics: count {} -> {}, age sum {} -> {}", count, freshCount, ageSum, freshSum);
+            }
+            histogram = fresh;
+            count = freshCount;
+            ageSum = freshSum;
+        }
+    }
+}
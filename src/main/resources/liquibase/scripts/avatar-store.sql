@@ -0,0 +1,11 @@
+-- liquibase formatted sql
+
+-- changeset dgavrilin:3
+ALTER TABLE avatar ADD COLUMN content_hash VARCHAR(64);
+
+-- changeset dgavrilin:4
+CREATE INDEX avatar_content_hash_index ON avatar(content_hash);
+
+-- changeset dgavrilin:5
+SELECT lo_unlink(data) FROM avatar WHERE data IS NOT NULL;
+ALTER TABLE avatar DROP COLUMN data;
@@ -0,0 +1,33 @@
+-- liquibase formatted sql
+
+-- changeset dgavrilin:0
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:0 SELECT count(*) FROM information_schema.tables WHERE table_schema = current_schema() AND table_name = 'student'
+CREATE SEQUENCE faculty_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE student_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE avatar_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE faculty
+(
+    id    BIGINT NOT NULL PRIMARY KEY,
+    name  VARCHAR(255),
+    color VARCHAR(255)
+);
+
+CREATE TABLE student
+(
+    id         BIGINT  NOT NULL PRIMARY KEY,
+    name       VARCHAR(255),
+    age        INTEGER NOT NULL,
+    faculty_id BIGINT REFERENCES faculty (id)
+);
+
+CREATE TABLE avatar
+(
+    id         BIGINT NOT NULL PRIMARY KEY,
+    file_path  VARCHAR(255),
+    media_type VARCHAR(255),
+    file_size  BIGINT NOT NULL,
+    data       OID,
+    student_id BIGINT REFERENCES student (id)
+);
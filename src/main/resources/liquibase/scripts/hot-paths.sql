@@ -0,0 +1,35 @@
+-- liquibase formatted sql
+
+-- changeset dgavrilin:10
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:0 SELECT count(*) FROM information_schema.table_constraints WHERE table_schema = current_schema() AND table_name = 'student' AND constraint_name = 'age_constraint'
+ALTER TABLE student ADD CONSTRAINT age_constraint CHECK ( age > 16 );
+
+-- changeset dgavrilin:11
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:0 SELECT count(*) FROM information_schema.table_constraints WHERE table_schema = current_schema() AND table_name = 'student' AND constraint_name = 'name_unique'
+ALTER TABLE student ADD CONSTRAINT name_unique UNIQUE (name);
+
+-- changeset dgavrilin:12
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:0 SELECT count(*) FROM information_schema.columns WHERE table_schema = current_schema() AND table_name = 'student' AND column_name = 'name' AND is_nullable = 'NO'
+ALTER TABLE student ALTER COLUMN name SET NOT NULL;
+
+-- changeset dgavrilin:13
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:0 SELECT count(*) FROM information_schema.table_constraints WHERE table_schema = current_schema() AND table_name = 'faculty' AND constraint_name = 'name_color_unique'
+ALTER TABLE faculty ADD CONSTRAINT name_color_unique UNIQUE (name, color);
+
+-- changeset dgavrilin:14
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:0 SELECT count(*) FROM information_schema.columns WHERE table_schema = current_schema() AND table_name = 'student' AND column_name = 'age' AND column_default IS NOT NULL
+ALTER TABLE student ALTER COLUMN age SET DEFAULT 20;
+
+-- changeset dgavrilin:16
+CREATE INDEX student_faculty_id_index ON student(faculty_id);
+
+-- changeset dgavrilin:17
+CREATE INDEX avatar_student_id_index ON avatar(student_id);
+
+-- changeset dgavrilin:18
+CREATE INDEX student_age_covering_index ON student(age) INCLUDE (id, name);
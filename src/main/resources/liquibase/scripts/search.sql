@@ -0,0 +1,13 @@
+-- liquibase formatted sql
+
+-- changeset dgavrilin:6
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- changeset dgavrilin:7
+CREATE INDEX student_name_trgm_index ON student USING gin (lower(name) gin_trgm_ops);
+
+-- changeset dgavrilin:8
+CREATE INDEX faculty_name_trgm_index ON faculty USING gin (lower(name) gin_trgm_ops);
+
+-- changeset dgavrilin:9
+CREATE INDEX faculty_color_trgm_index ON faculty USING gin (lower(color) gin_trgm_ops);
@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -19,7 +20,10 @@ import ru.hogwarts.school.service.FacultyService;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -80,8 +84,8 @@ public class FacultyControllerWebMvcTest {
 
     @Test
     void getFacultyInfoByIdTest() throws Exception {
-        Faculty faculty = new Faculty(1L, "Лизерин", "Жёлтый");
-        when(facultyRepository.findById(1L)).thenReturn(Optional.of(faculty));
+        FacultyDTO faculty = new FacultyDTO(1L, "Лизерин", "Жёлтый");
+        when(facultyRepository.findDtoById(1L)).thenReturn(Optional.of(faculty));
 
         mockMvc.perform(MockMvcRequestBuilders
                         .get("/faculty/1"))
@@ -93,7 +97,7 @@ public class FacultyControllerWebMvcTest {
 
     @Test
     void getFacultyInfoByInvalidIdTest() throws Exception {
-        when(facultyRepository.findById(9999L)).thenReturn(Optional.empty());
+        when(facultyRepository.findDtoById(9999L)).thenReturn(Optional.empty());
 
         mockMvc.perform(MockMvcRequestBuilders
                         .get("/faculty/9999"))
@@ -102,8 +106,8 @@ public class FacultyControllerWebMvcTest {
 
     @Test
     void deleteFacultyTest() throws Exception {
-        Faculty faculty = new Faculty(1L, "Лизерин", "Жёлтый");
-        when(facultyRepository.findById(1L)).thenReturn(Optional.of(faculty));
+        FacultyDTO faculty = new FacultyDTO(1L, "Лизерин", "Жёлтый");
+        when(facultyRepository.findDtoById(1L)).thenReturn(Optional.of(faculty));
 
         mockMvc.perform(MockMvcRequestBuilders
                         .delete("/faculty/1"))
@@ -112,7 +116,7 @@ public class FacultyControllerWebMvcTest {
 
     @Test
     void deleteFacultyNotFoundTest() throws Exception {
-        when(facultyRepository.findById(1L)).thenReturn(Optional.empty());
+        when(facultyRepository.findDtoById(1L)).thenReturn(Optional.empty());
 
         mockMvc.perform(MockMvcRequestBuilders
                         .delete("/faculty/1"))
@@ -123,7 +127,7 @@ public class FacultyControllerWebMvcTest {
     void getFacultiesByColorOrNameTest() throws Exception {
         Faculty faculty1 = new Faculty(1L, "Лизерин", "Жёлтый");
         Faculty faculty2 = new Faculty(2L, "Гиффиндуй", "Жёлтый");
-        when(facultyRepository.findByNameContainingIgnoreCaseOrColorContainingIgnoreCase("жёлтый", "жёлтый"))
+        when(facultyRepository.searchByNameOrColor("жёлтый"))
                 .thenReturn(Arrays.asList(faculty1, faculty2));
 
         mockMvc.perform(MockMvcRequestBuilders
@@ -147,7 +151,7 @@ public class FacultyControllerWebMvcTest {
                 new StudentDTO(2L, "Вислый", 21)
         ));
 
-        when(facultyRepository.findById(1L)).thenReturn(Optional.of(faculty));
+        when(facultyRepository.findWithStudentsById(1L)).thenReturn(Optional.of(faculty));
         when(facultyService.convertToDto(faculty)).thenReturn(facultyDTO);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/faculty/1/students"))
@@ -158,12 +162,77 @@ public class FacultyControllerWebMvcTest {
     }
 
     @Test
-    void getLongestFacultyNameTest() throws Exception {
-        when(facultyRepository.findAll()).thenReturn(Arrays.asList(
-                new Faculty(1L, "Короткое", "Красный"),
-                new Faculty(2L, "ОченьДлинноеНазваниеФакультета", "Синий")
+    void getFacultiesWithStudentsTest() throws Exception {
+        Faculty faculty1 = new Faculty(1L, "Лизерин", "Жёлтый");
+        faculty1.setStudents(List.of(new Student(1L, "Портер", 21)));
+        Faculty faculty2 = new Faculty(2L, "Гиффиндуй", "Красный");
+        faculty2.setStudents(List.of());
+        when(facultyRepository.findAllWithStudentsByIdIn(List.of(1L, 2L))).thenReturn(List.of(faculty1, faculty2));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/faculty/students?ids=1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].students[0].name").value("Портер"))
+                .andExpect(jsonPath("$[1].students.length()").value(0));
+    }
+
+    @Test
+    void getFacultiesWithStudentsTooManyIdsTest() throws Exception {
+        String ids = LongStream.rangeClosed(1, 101).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/faculty/students?ids=" + ids))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getFacultiesBatchTest() throws Exception {
+        when(facultyRepository.findDtosByIdIn(List.of(1L, 2L, 3L))).thenReturn(Arrays.asList(
+                new FacultyDTO(3L, "Гиффиндуй", "Красный"),
+                new FacultyDTO(1L, "Лизерин", "Жёлтый")
+        ));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/faculty/batch")
+                        .content("[1, 2, 3, 1]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found.length()").value(2))
+                .andExpect(jsonPath("$.found['1'].name").value("Лизерин"))
+                .andExpect(jsonPath("$.found['3'].color").value("Красный"))
+                .andExpect(jsonPath("$.notFound.length()").value(1))
+                .andExpect(jsonPath("$.notFound[0]").value(2));
+    }
+
+    @Test
+    void getFacultiesBatchTooLargeTest() throws Exception {
+        String ids = LongStream.rangeClosed(1, 101).mapToObj(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/faculty/batch")
+                        .content(ids)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getFacultiesPageTest() throws Exception {
+        when(facultyRepository.findPageAfter(1L, Limit.of(51))).thenReturn(Arrays.asList(
+                new FacultyDTO(2L, "Лизерин", "Жёлтый"),
+                new FacultyDTO(3L, "Гиффиндуй", "Красный")
         ));
 
+        mockMvc.perform(MockMvcRequestBuilders.get("/faculty?after=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].name").value("Лизерин"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    void getLongestFacultyNameTest() throws Exception {
+        when(facultyRepository.findNamesByLengthDesc(Limit.of(1)))
+                .thenReturn(List.of("ОченьДлинноеНазваниеФакультета"));
+
         mockMvc.perform(MockMvcRequestBuilders.get("/faculty/longest-faculty-name"))
                 .andExpect(status().isOk())
                 .andExpect(content().string("ОченьДлинноеНазваниеФакультета"));
@@ -0,0 +1,96 @@
+package ru.hogwarts.school.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.service.SearchService;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(SearchController.class)
+public class SearchControllerWebMvcTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StudentRepository studentRepository;
+
+    @MockBean
+    private FacultyRepository facultyRepository;
+
+    @SpyBean
+    private SearchService searchService;
+
+    @Test
+    void searchStudentsByPrefixTest() throws Exception {
+        StudentRepository.NameSearchRow row = mock(StudentRepository.NameSearchRow.class);
+        when(row.getId()).thenReturn(1L);
+        when(row.getName()).thenReturn("Harry_Potter");
+        when(row.getAge()).thenReturn(17);
+        when(row.getScore()).thenReturn(0.5);
+        when(studentRepository.searchByNamePattern(anyString(), anyString(), anyInt())).thenReturn(List.of(row));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/search/students")
+                        .param("q", " Harry_P ")
+                        .param("mode", "prefix")
+                        .param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].item.id").value(1L))
+                .andExpect(jsonPath("$[0].item.name").value("Harry_Potter"))
+                .andExpect(jsonPath("$[0].score").value(0.5));
+
+        verify(studentRepository).searchByNamePattern("harry_p", "harry\\_p%", 50);
+    }
+
+    @Test
+    void searchFacultiesFuzzyTest() throws Exception {
+        FacultyRepository.NameColorSearchRow row = mock(FacultyRepository.NameColorSearchRow.class);
+        when(row.getId()).thenReturn(2L);
+        when(row.getName()).thenReturn("Гриффиндор");
+        when(row.getColor()).thenReturn("Красный");
+        when(row.getScore()).thenReturn(0.4);
+        when(facultyRepository.searchBySimilarity(anyString(), anyInt())).thenReturn(List.of(row));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/search/faculties")
+                        .param("q", "Грифиндор")
+                        .param("mode", "fuzzy"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].item.name").value("Гриффиндор"))
+                .andExpect(jsonPath("$[0].item.color").value("Красный"));
+
+        verify(facultyRepository).searchBySimilarity("грифиндор", 10);
+    }
+
+    @Test
+    void searchRejectsBlankQueryAndUnknownModeTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/search/students")
+                        .param("q", "  "))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/search/faculties")
+                        .param("q", "red")
+                        .param("mode", "regex"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(studentRepository, facultyRepository);
+    }
+}
@@ -1,30 +1,75 @@
 package ru.hogwarts.school.controller;
 
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.hogwarts.school.DTO.FacultyDTO;
+import ru.hogwarts.school.DTO.StudentDTO;
+import ru.hogwarts.school.DTO.StudentDetailsDTO;
+import ru.hogwarts.school.DTO.StudentExportRow;
+import ru.hogwarts.school.DTO.StudentImportReport;
+import ru.hogwarts.school.DTO.StudentStatisticsDTO;
+import ru.hogwarts.school.model.Avatar;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.AvatarRepository;
 import ru.hogwarts.school.repository.FacultyRepository;
 import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.service.AvatarMetrics;
+import ru.hogwarts.school.service.AvatarPreviewCache;
 import ru.hogwarts.school.service.AvatarService;
 import ru.hogwarts.school.service.FacultyService;
+import ru.hogwarts.school.service.RosterFormat;
+import ru.hogwarts.school.service.StudentExportService;
+import ru.hogwarts.school.service.StudentImportService;
 import ru.hogwarts.school.service.StudentService;
+import ru.hogwarts.school.service.RosterProcessor;
+import ru.hogwarts.school.service.SingleFlightRegistry;
+import ru.hogwarts.school.service.StudentAnalyticsService;
+import ru.hogwarts.school.service.StudentNameIndex;
+import ru.hogwarts.school.service.StudentStatistics;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(StudentController.class)
@@ -51,6 +96,27 @@ public class StudentControllerWebMvcTest {
     @SpyBean
     private StudentService studentService;
 
+    @SpyBean
+    private StudentExportService studentExportService;
+
+    @MockBean
+    private StudentImportService studentImportService;
+
+    @MockBean
+    private StudentStatistics studentStatistics;
+
+    @SpyBean
+    private StudentNameIndex studentNameIndex;
+
+    @SpyBean
+    private RosterProcessor rosterProcessor;
+
+    @SpyBean
+    private StudentAnalyticsService studentAnalyticsService;
+
+    @SpyBean
+    private SingleFlightRegistry singleFlightRegistry;
+
     @InjectMocks
     private StudentController studentController;
 
@@ -73,28 +139,254 @@ public class StudentControllerWebMvcTest {
                 .andExpect(jsonPath("$.age").value(21));
     }
 
+    @Test
+    void findStudentsByNamePrefixTest() throws Exception {
+        when(studentRepository.findAllNames()).thenReturn(List.of(
+                new StudentDTO(1L, "Алиса", 18),
+                new StudentDTO(2L, "Albus", 20),
+                new StudentDTO(3L, "Борис", 19),
+                new StudentDTO(4L, "alastor", 22)));
+        studentNameIndex.reload();
+
+        when(studentRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(
+                new Student(2L, "Albus", 20),
+                new Student(1L, "Алиса", 18)));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/student/name-prefix/A")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("alastor"))
+                .andExpect(jsonPath("$[1].name").value("Albus"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/student/name-prefix/A"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[2].name").value("Алиса"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/student/name-prefix/Али"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Алиса"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/student/name-starts-with-A"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("Albus"))
+                .andExpect(jsonPath("$[1].name").value("Алиса"));
+
+        verify(studentRepository, never()).findAll();
+    }
+
+    @Test
+    void printParallelWithFewerThanSixStudentsTest() throws Exception {
+        when(studentRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class))).thenReturn(List.of(
+                new Student(1L, "Гарри", 17),
+                new Student(2L, "Рон", 17),
+                new Student(3L, "Гермиона", 18)));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/student/print-parallel"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/student/print-synchronized"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0]").value(new Student(1L, "Гарри", 17).toString()))
+                .andExpect(jsonPath("$[2]").value(new Student(3L, "Гермиона", 18).toString()));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/student/print-executor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rejectedChunks").value(0));
+    }
+
+    @Test
+    void getStudentAnalyticsTest() throws Exception {
+        when(facultyRepository.findAll()).thenReturn(List.of(
+                new Faculty(1L, "Гриффиндор", "Красный"),
+                new Faculty(2L, "Слизерин", "Зелёный")));
+        when(studentRepository.streamAnalyticsColumns()).thenReturn(Stream.of(
+                new Object[]{17, 5, 1L},
+                new Object[]{18, 3, 1L},
+                new Object[]{21, 8, 1L},
+                new Object[]{19, 6, 2L},
+                new Object[]{30, 10, null}));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/student/analytics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(5))
+                .andExpect(jsonPath("$.age.min").value(17))
+                .andExpect(jsonPath("$.age.max").value(30))
+                .andExpect(jsonPath("$.age.average").value(21.0))
+                .andExpect(jsonPath("$.age.p50").value(19))
+                .andExpect(jsonPath("$.nameLength.min").value(3))
+                .andExpect(jsonPath("$.nameLength.max").value(10))
+                .andExpect(jsonPath("$.ageDistribution.30").value(1))
+                .andExpect(jsonPath("$.faculties.length()").value(3))
+                .andExpect(jsonPath("$.faculties[0].facultyName").value("Гриффиндор"))
+                .andExpect(jsonPath("$.faculties[0].age.count").value(3))
+                .andExpect(jsonPath("$.faculties[0].age.p50").value(18))
+                .andExpect(jsonPath("$.faculties[1].age.max").value(19))
+                .andExpect(jsonPath("$.faculties[2].facultyId").doesNotExist())
+                .andExpect(jsonPath("$.faculties[2].age.average").value(30.0));
+    }
+
     @Test
     void getStudentInfoByIdTest() throws Exception {
-        Student student = new Student(1L, "Портер", 21);
-        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+        StudentDetailsDTO student = new StudentDetailsDTO(1L, "Портер", 21, 1L, "Лизерин", "Жёлтый");
+        when(studentRepository.findDetailsById(1L)).thenReturn(Optional.of(student));
 
         mockMvc.perform(MockMvcRequestBuilders
                         .get("/student/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(1L))
                 .andExpect(jsonPath("$.name").value("Портер"))
-                .andExpect(jsonPath("$.age").value(21));
+                .andExpect(jsonPath("$.age").value(21))
+                .andExpect(jsonPath("$.faculty.name").value("Лизерин"));
+    }
+
+    @Test
+    void getLastFiveStudentsSerializesFacultyWithoutCycleTest() throws Exception {
+        Faculty faculty = new Faculty(1L, "Лизерин", "Жёлтый");
+        Student student = new Student(1L, "Портер", 21);
+        student.setFaculty(faculty);
+        faculty.setStudents(List.of(student));
+        when(studentRepository.findLastFiveStudents()).thenReturn(List.of(student));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/student/last-five"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Портер"))
+                .andExpect(jsonPath("$[0].faculty.name").value("Лизерин"))
+                .andExpect(jsonPath("$[0].faculty.students").doesNotExist());
+    }
+
+    @Test
+    void getStudentInfoCoalescesConcurrentLookupsTest() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        singleFlightRegistry.bindTo(registry);
+        FunctionCounter coalesced = registry.get("singleflight.coalesced").tag("name", "students").functionCounter();
+        double coalescedBefore = coalesced.count();
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(studentRepository.findDetailsById(7L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(new StudentDetailsDTO(7L, "Портер", 21, null));
+        });
+
+        int callers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                statuses.add(executor.submit(() -> mockMvc.perform(MockMvcRequestBuilders.get("/student/7"))
+                        .andReturn().getResponse().getStatus()));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (coalesced.count() - coalescedBefore < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            for (Future<Integer> status : statuses) {
+                assertEquals(200, status.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(callers - 1, coalesced.count() - coalescedBefore);
+        verify(studentRepository, times(1)).findDetailsById(7L);
+    }
+
+    @Test
+    void getStudentInfoDoesNotJoinLookupStartedBeforeEditTest() throws Exception {
+        CountDownLatch staleLookupStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(studentRepository.findDetailsById(8L))
+                .thenAnswer(invocation -> {
+                    staleLookupStarted.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return Optional.of(new StudentDetailsDTO(8L, "Портер", 21, null));
+                })
+                .thenReturn(Optional.of(new StudentDetailsDTO(8L, "New Портер", 22, null)));
+        when(studentRepository.save(any(Student.class))).thenReturn(new Student(8L, "New Портер", 22));
+        when(studentRepository.existsById(8L)).thenReturn(true);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> staleLookup = executor.submit(() -> mockMvc.perform(MockMvcRequestBuilders.get("/student/8"))
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+            assertTrue(staleLookupStarted.await(5, TimeUnit.SECONDS));
+
+            JSONObject studentJson = new JSONObject();
+            studentJson.put("id", 8);
+            studentJson.put("name", "New Портер");
+            studentJson.put("age", 22);
+            mockMvc.perform(MockMvcRequestBuilders
+                            .put("/student")
+                            .content(studentJson.toString())
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/student/8"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.name").value("New Портер"));
+
+            release.countDown();
+            staleLookup.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        verify(studentRepository, times(2)).findDetailsById(8L);
     }
 
     @Test
     void getStudentInfoByInvalidIdTest() throws Exception {
-        when(studentRepository.findById(9999L)).thenReturn(Optional.empty());
+        when(studentRepository.findDetailsById(9999L)).thenReturn(Optional.empty());
 
         mockMvc.perform(MockMvcRequestBuilders
                         .get("/student/9999"))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getStudentsBatchTest() throws Exception {
+        when(studentRepository.findDetailsByIdIn(List.of(1L, 2L, 9999L))).thenReturn(Arrays.asList(
+                new StudentDetailsDTO(1L, "Портер", 21, 1L, "Лизерин", "Жёлтый"),
+                new StudentDetailsDTO(2L, "Вислый", 20, null, null, null)
+        ));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/student/batch")
+                        .content("[1, 2, 9999]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found['1'].name").value("Портер"))
+                .andExpect(jsonPath("$.found['1'].faculty.name").value("Лизерин"))
+                .andExpect(jsonPath("$.found['2'].faculty").doesNotExist())
+                .andExpect(jsonPath("$.notFound[0]").value(9999));
+    }
+
+    @Test
+    void getStudentsBatchEmptyTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/student/batch")
+                        .content("[]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(studentRepository, never()).findDetailsByIdIn(any());
+    }
+
     @Test
     void updateStudentTest() throws Exception {
         Student updatedStudent = new Student(1L, "New Портер", 22);
@@ -126,9 +418,9 @@ public class StudentControllerWebMvcTest {
 
     @Test
     void getStudentsByAgeBetweenTest() throws Exception {
-        Student student1 = new Student(1L, "Портер", 21);
-        Student student2 = new Student(2L, "Вислый", 25);
-        when(studentRepository.findByAgeBetween(20, 25))
+        StudentDTO student1 = new StudentDTO(1L, "Портер", 21);
+        StudentDTO student2 = new StudentDTO(2L, "Вислый", 25);
+        when(studentRepository.findDtoByAgeBetween(20, 25))
                 .thenReturn(Arrays.asList(student1, student2));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/student/age?minAge=20&maxAge=25"))
@@ -139,19 +431,240 @@ public class StudentControllerWebMvcTest {
     }
 
     @Test
-    void getStudentFacultyTest() throws Exception {
-        Faculty faculty = new Faculty(1L, "Лизерин", "Желтый");
-        Student student = new Student(1L, "Портер", 21);
-        student.setFaculty(faculty);
+    void getStudentsByAgeTest() throws Exception {
+        when(studentRepository.findDtoByAge(21))
+                .thenReturn(List.of(new StudentDTO(1L, "Портер", 21)));
 
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/age/21"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].name").value("Портер"))
+                .andExpect(jsonPath("$[0].age").value(21));
+        verify(studentRepository).findDtoByAge(21);
+    }
+
+    @Test
+    void getStudentFacultyTest() throws Exception {
         FacultyDTO facultyDTO = new FacultyDTO(1L, "Лизерин", "Желтый");
 
-        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
-        when(facultyService.convertToDto(faculty)).thenReturn(facultyDTO);
+        when(studentRepository.findFacultyByStudentId(1L)).thenReturn(Optional.of(facultyDTO));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/student/1/faculty"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name").value("Лизерин"))
                 .andExpect(jsonPath("$.color").value("Желтый"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getStudentFacultyNotFoundTest() throws Exception {
+        when(studentRepository.findFacultyByStudentId(1L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/1/faculty"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getStudentsCountTest() throws Exception {
+        when(studentStatistics.getCount()).thenReturn(42L);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/count"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("42"));
+    }
+
+    @Test
+    void getStatisticsTest() throws Exception {
+        when(studentStatistics.snapshot()).thenReturn(new StudentStatisticsDTO(3, 20.0, 18, 22, Map.of(18, 1L, 20, 1L, 22, 1L)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/statistics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.averageAge").value(20.0))
+                .andExpect(jsonPath("$.minAge").value(18))
+                .andExpect(jsonPath("$.maxAge").value(22))
+                .andExpect(jsonPath("$.ageHistogram.20").value(1));
+    }
+
+    @Test
+    void getStudentsPageTest() throws Exception {
+        when(studentRepository.findPageAfter(0L, Limit.of(3))).thenReturn(Arrays.asList(
+                new StudentDTO(1L, "Портер", 21),
+                new StudentDTO(2L, "Вислый", 21),
+                new StudentDTO(3L, "Грейнджер", 20)
+        ));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/student?limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[1].name").value("Вислый"))
+                .andExpect(jsonPath("$.next").isNotEmpty())
+                .andReturn();
+
+        String next = JsonPath.read(result.getResponse().getContentAsString(), "$.next");
+        when(studentRepository.findPageAfter(2L, Limit.of(3)))
+                .thenReturn(List.of(new StudentDTO(3L, "Грейнджер", 20)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student?limit=2&cursor=" + next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("Грейнджер"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    void getStudentsPageInvalidCursorTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/student?cursor=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportStudentsNdjsonTest() throws Exception {
+        when(studentRepository.streamExportRowsWithFaculty()).thenReturn(Stream.of(
+                new StudentExportRow(1L, "Портер", 21, "Лизерин"),
+                new StudentExportRow(2L, "Вислый", 21, null)
+        ));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/student/export?format=ndjson&withFaculty=true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(
+                        "{\"id\":1,\"name\":\"Портер\",\"age\":21,\"faculty\":\"Лизерин\"}\n" +
+                        "{\"id\":2,\"name\":\"Вислый\",\"age\":21,\"faculty\":null}\n"));
+    }
+
+    @Test
+    void exportStudentsCsvTest() throws Exception {
+        when(studentRepository.streamExportRows()).thenReturn(Stream.of(
+                new StudentExportRow(1L, "Портер, Гарри", 21),
+                new StudentExportRow(2L, "Вислый", 21)
+        ));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/student/export?format=csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("id,name,age\n1,\"Портер, Гарри\",21\n2,Вислый,21\n"));
+    }
+
+    @Test
+    void importStudentsTest() throws Exception {
+        StudentImportReport report = new StudentImportReport();
+        report.addImported(1);
+        report.addFailure(3, "Age must be greater than 16");
+        when(studentImportService.importStudents(any(InputStream.class), eq(RosterFormat.CSV))).thenReturn(report);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/student/import")
+                        .contentType("text/csv")
+                        .content("name,age\nПортер,21\nВислый,12\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.failures[0].line").value(3));
+    }
+
+    @Test
+    void importStudentsUnsupportedTypeTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/student/import")
+                        .contentType(MediaType.APPLICATION_XML)
+                        .content("<students/>"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void downloadAvatarTest(@TempDir Path dir) throws Exception {
+        Avatar avatar = stubAvatar(dir);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/1/avatar"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + avatar.getContentHash() + "\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(content().string("avatar-bytes"));
+    }
+
+    @Test
+    void downloadAvatarNotModifiedTest(@TempDir Path dir) throws Exception {
+        Avatar avatar = stubAvatar(dir);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/1/avatar")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + avatar.getContentHash() + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void downloadAvatarRangeTest(@TempDir Path dir) throws Exception {
+        stubAvatar(dir);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/1/avatar")
+                        .header(HttpHeaders.RANGE, "bytes=0-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-5/12"))
+                .andExpect(content().string("avatar"));
+
+        verify(avatarService).recordServed(AvatarMetrics.Variant.ORIGINAL, 6);
+    }
+
+    @Test
+    void headAvatarDoesNotRecordServedBytesTest(@TempDir Path dir) throws Exception {
+        stubAvatar(dir);
+
+        mockMvc.perform(MockMvcRequestBuilders.head("/student/1/avatar"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "12"));
+
+        verify(avatarService, never()).recordServed(any(), anyLong());
+    }
+
+    @Test
+    void downloadAvatarThumbnailTest(@TempDir Path dir) throws Exception {
+        Avatar avatar = stubAvatar(dir);
+        Path thumbnail = Files.writeString(dir.resolve("avatar-64.jpg"), "thumb");
+        when(avatarService.loadThumbnailResource(avatar, 64)).thenReturn(Optional.of(new FileSystemResource(thumbnail)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/1/avatar/thumbnail?size=64"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + avatar.getContentHash() + "-64\""))
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                .andExpect(content().string("thumb"));
+    }
+
+    @Test
+    void downloadAvatarThumbnailFallbackTest(@TempDir Path dir) throws Exception {
+        Avatar avatar = stubAvatar(dir);
+        when(avatarService.loadThumbnailResource(avatar, 256)).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/1/avatar/thumbnail?size=256"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(content().string("avatar-bytes"));
+    }
+
+    @Test
+    void downloadAvatarPreviewTest() throws Exception {
+        when(avatarService.getAvatarPreview(1L))
+                .thenReturn(new AvatarPreviewCache.AvatarPreview(MediaType.IMAGE_PNG_VALUE, "preview".getBytes()));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/1/avatar/preview"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(content().bytes("preview".getBytes()));
+    }
+
+    private Avatar stubAvatar(Path dir) throws Exception {
+        Path file = Files.writeString(dir.resolve("avatar.png"), "avatar-bytes");
+        Avatar avatar = new Avatar(1L, file.toString(), MediaType.IMAGE_PNG_VALUE, Files.size(file), null);
+        avatar.setContentHash("abc123");
+
+        when(avatarService.findAvatar(1L)).thenReturn(avatar);
+        when(avatarService.loadAvatarResource(avatar)).thenReturn(new FileSystemResource(file));
+        return avatar;
+    }
+}
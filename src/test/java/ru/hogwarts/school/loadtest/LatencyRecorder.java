@@ -0,0 +1,76 @@
+package ru.hogwarts.school.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+class LatencyRecorder {
+
+    private final Map<String, Samples> samples = new ConcurrentSkipListMap<>();
+
+    void record(String endpoint, long latencyNanos, boolean success) {
+        Samples endpointSamples = samples.computeIfAbsent(endpoint, name -> new Samples());
+        endpointSamples.latencies.add(latencyNanos);
+        if (!success) {
+            endpointSamples.errors.increment();
+        }
+    }
+
+    List<EndpointReport> report() {
+        List<EndpointReport> reports = new ArrayList<>(samples.size());
+        samples.forEach((endpoint, endpointSamples) -> {
+            long[] sorted = endpointSamples.latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            reports.add(new EndpointReport(
+                    endpoint,
+                    sorted.length,
+                    endpointSamples.errors.sum(),
+                    percentile(sorted, 0.50),
+                    percentile(sorted, 0.95),
+                    percentile(sorted, 0.99),
+                    Duration.ofNanos(sorted.length == 0 ? 0 : sorted[sorted.length - 1])));
+        });
+        return reports;
+    }
+
+    private static Duration percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Duration.ZERO;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return Duration.ofNanos(sorted[Math.max(0, rank - 1)]);
+    }
+
+    private static class Samples {
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final LongAdder errors = new LongAdder();
+    }
+
+    record EndpointReport(String endpoint, long requests, long errors,
+                          Duration p50, Duration p95, Duration p99, Duration max) {
+
+        double errorRate() {
+            return requests == 0 ? 0.0 : (double) errors / requests;
+        }
+
+        String format() {
+            return String.format("%-36s %8d %7d %10.2f %10.2f %10.2f %10.2f",
+                    endpoint, requests, errors, millis(p50), millis(p95), millis(p99), millis(max));
+        }
+
+        static String header() {
+            return String.format("%-36s %8s %7s %10s %10s %10s %10s",
+                    "endpoint", "requests", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        }
+
+        private static double millis(Duration duration) {
+            return duration.toNanos() / 1_000_000.0;
+        }
+    }
+}
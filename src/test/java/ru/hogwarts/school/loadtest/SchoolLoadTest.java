@@ -0,0 +1,299 @@
+package ru.hogwarts.school.loadtest;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.service.StudentNameIndex;
+import ru.hogwarts.school.service.StudentStatistics;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("load-test")
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class SchoolLoadTest {
+
+    private static final String[] PREFIXES = {"a", "b", "g", "h", "r", "s"};
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private FacultyRepository facultyRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private StudentStatistics studentStatistics;
+
+    @Autowired
+    private StudentNameIndex studentNameIndex;
+
+    @Value("${loadtest.faculties}")
+    private int faculties;
+
+    @Value("${loadtest.students}")
+    private int students;
+
+    @Value("${loadtest.avatars}")
+    private int avatars;
+
+    @Value("${loadtest.rps}")
+    private int rps;
+
+    @Value("${loadtest.warmup}")
+    private Duration warmup;
+
+    @Value("${loadtest.duration}")
+    private Duration duration;
+
+    @Value("${loadtest.p99-budget}")
+    private Duration p99Budget;
+
+    @Value("${loadtest.min-samples}")
+    private int minSamples;
+
+    @Value("${loadtest.max-error-rate}")
+    private double maxErrorRate;
+
+    private final ExecutorService clientExecutor = Executors.newFixedThreadPool(32);
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(clientExecutor)
+            .build();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private long[] studentIds;
+    private long[] avatarStudentIds;
+    private long[] facultyIds;
+    private List<byte[]> avatarImages;
+
+    @AfterEach
+    void tearDown() {
+        clientExecutor.shutdownNow();
+    }
+
+    @Test
+    void mixedWorkloadStaysWithinP99Budget() throws Exception {
+        seed();
+        List<Operation> workload = workload();
+
+        run(workload, warmup, new LatencyRecorder());
+        LatencyRecorder recorder = new LatencyRecorder();
+        run(workload, duration, recorder);
+
+        List<LatencyRecorder.EndpointReport> reports = recorder.report();
+        System.out.printf("Load test: %d rps for %s against %d students, %d faculties, %d avatars%n",
+                rps, duration, students, faculties, avatars);
+        System.out.println(LatencyRecorder.EndpointReport.header());
+        reports.forEach(report -> System.out.println(report.format()));
+
+        SoftAssertions softly = new SoftAssertions();
+        for (LatencyRecorder.EndpointReport report : reports) {
+            if (report.requests() >= minSamples) {
+                softly.assertThat(report.p99()).as("p99 of %s", report.endpoint()).isLessThanOrEqualTo(p99Budget);
+            } else {
+                System.out.printf("Skipping p99 budget for %s: %d requests, at least %d needed%n",
+                        report.endpoint(), report.requests(), minSamples);
+            }
+            softly.assertThat(report.errorRate()).as("error rate of %s", report.endpoint()).isLessThanOrEqualTo(maxErrorRate);
+        }
+        HttpResponse<String> metrics = client.send(get("/actuator/prometheus"), HttpResponse.BodyHandlers.ofString());
+        softly.assertThat(metrics.body()).as("prometheus scrape").contains(
+                "http_server_requests_seconds_bucket",
+                "spring_data_repository_invocations_seconds_count",
+                "hikaricp_connections_active",
+                "avatars_bytes_in_bytes_total",
+                "avatars_bytes_out_bytes_total",
+                "avatars_write_behind_written_total",
+                "cache=\"avatarPreviews\"",
+                "singleflight_coalesced_total{application=\"school\",name=\"students\"}",
+                "executor_queued_tasks");
+        softly.assertAll();
+    }
+
+    private void seed() throws Exception {
+        Random random = new Random(42);
+        List<Faculty> savedFaculties = facultyRepository.saveAll(
+                IntStream.range(0, faculties)
+                        .mapToObj(i -> new Faculty(0L, "Faculty " + i, "Color " + i % 4))
+                        .toList());
+        facultyIds = savedFaculties.stream().mapToLong(Faculty::getId).toArray();
+
+        studentIds = new long[students];
+        for (int from = 0; from < students; from += 1000) {
+            List<Student> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(from + 1000, students); i++) {
+                Student student = new Student(0L, PREFIXES[random.nextInt(PREFIXES.length)] + "student " + i, 17 + random.nextInt(10));
+                student.setFaculty(savedFaculties.get(random.nextInt(savedFaculties.size())));
+                chunk.add(student);
+            }
+            List<Student> saved = studentRepository.saveAll(chunk);
+            for (int i = 0; i < saved.size(); i++) {
+                studentIds[from + i] = saved.get(i).getId();
+            }
+        }
+        studentStatistics.reconcile();
+        studentNameIndex.reload();
+
+        avatarImages = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            avatarImages.add(image(random));
+        }
+        avatarStudentIds = new long[Math.min(avatars, students)];
+        for (int i = 0; i < avatarStudentIds.length; i++) {
+            avatarStudentIds[i] = studentIds[i];
+            HttpResponse<Void> response = client.send(uploadAvatar(studentIds[i]), HttpResponse.BodyHandlers.discarding());
+            assertThat(response.statusCode()).as("seed avatar upload").isEqualTo(200);
+        }
+    }
+
+    private List<Operation> workload() {
+        return List.of(
+                new Operation("GET /student/{id}", 30, () -> get("/student/" + randomOf(studentIds))),
+                new Operation("GET /student?limit=50", 10, () -> get("/student?limit=50&after=" + randomOf(studentIds))),
+                new Operation("GET /student/statistics", 5, () -> get("/student/statistics")),
+                new Operation("GET /student/analytics", 1, () -> get("/student/analytics")),
+                new Operation("GET /student/name-prefix/{prefix}", 10,
+                        () -> get("/student/name-prefix/" + PREFIXES[ThreadLocalRandom.current().nextInt(PREFIXES.length)] + "?limit=20")),
+                new Operation("GET /student/age?minAge&maxAge", 3, () -> {
+                    int minAge = 17 + ThreadLocalRandom.current().nextInt(9);
+                    return get("/student/age?minAge=" + minAge + "&maxAge=" + (minAge + 1));
+                }),
+                new Operation("GET /student/{id}/faculty", 5, () -> get("/student/" + randomOf(studentIds) + "/faculty")),
+                new Operation("GET /faculty/{id}", 5, () -> get("/faculty/" + randomOf(facultyIds))),
+                new Operation("GET /faculty/{id}/students", 3, () -> get("/faculty/" + randomOf(facultyIds) + "/students")),
+                new Operation("GET /student/{id}/avatar", 10, () -> get("/student/" + randomOf(avatarStudentIds) + "/avatar")),
+                new Operation("GET /student/{id}/avatar/preview", 5, () -> get("/student/" + randomOf(avatarStudentIds) + "/avatar/preview")),
+                new Operation("POST /student", 7, () -> json("POST", "/student",
+                        "{\"name\":\"load student " + UUID.randomUUID() + "\",\"age\":20}")),
+                new Operation("PUT /student", 5, () -> {
+                    long id = randomOf(studentIds);
+                    return json("PUT", "/student", "{\"id\":" + id + ",\"name\":\"edited student " + id + "\",\"age\":"
+                            + (17 + ThreadLocalRandom.current().nextInt(10)) + "}");
+                }),
+                new Operation("POST /student/{id}/avatar", 5, () -> uploadAvatar(randomOf(avatarStudentIds)))
+        );
+    }
+
+    private void run(List<Operation> workload, Duration period, LatencyRecorder recorder) throws Exception {
+        int totalWeight = workload.stream().mapToInt(Operation::weight).sum();
+        long interval = TimeUnit.SECONDS.toNanos(1) / rps;
+        long start = System.nanoTime();
+        long end = start + period.toNanos();
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+
+        for (long intended = start; intended < end; intended += interval) {
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Operation operation = pick(workload, totalWeight);
+            long scheduledAt = intended;
+            inFlight.add(client.sendAsync(operation.request().get(), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        recorder.record(operation.name(), System.nanoTime() - scheduledAt,
+                                error == null && response.statusCode() < 400);
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).get(1, TimeUnit.MINUTES);
+    }
+
+    private Operation pick(List<Operation> workload, int totalWeight) {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : workload) {
+            roll -= operation.weight();
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        return workload.get(workload.size() - 1);
+    }
+
+    private long randomOf(long[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private HttpRequest json(String method, String path, String body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest uploadAvatar(long studentId) {
+        String boundary = "loadtest-" + sequence.incrementAndGet();
+        byte[] image = avatarImages.get(ThreadLocalRandom.current().nextInt(avatarImages.size()));
+        ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 256);
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"avatar\"; filename=\"avatar.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(image);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(uri("/student/" + studentId + "/avatar"))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static byte[] image(Random random) throws IOException {
+        BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private record Operation(String name, int weight, Supplier<HttpRequest> request) {
+    }
+}
@@ -0,0 +1,189 @@
+package ru.hogwarts.school.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.hogwarts.school.repository.QueryPlanTest$SqlCapture")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QueryPlanTest {
+
+    private static final String DATASOURCE_URL = "queryplan.datasource.url";
+
+    private static PostgreSQLContainer<?> postgres;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private FacultyRepository facultyRepository;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startDatabase() {
+        if (System.getProperty(DATASOURCE_URL) != null) {
+            return;
+        }
+        assumeTrue(DockerClientFactory.instance().isDockerAvailable(),
+                "Query plans need Docker or an existing PostgreSQL 16 database passed as -D" + DATASOURCE_URL);
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+    }
+
+    @AfterAll
+    static void stopDatabase() {
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> postgres != null ? postgres.getJdbcUrl() : System.getProperty(DATASOURCE_URL));
+        registry.add("spring.datasource.username",
+                () -> postgres != null ? postgres.getUsername() : System.getProperty("queryplan.datasource.username", "student"));
+        registry.add("spring.datasource.password",
+                () -> postgres != null ? postgres.getPassword() : System.getProperty("queryplan.datasource.password", "chocolatefrog"));
+    }
+
+    @BeforeEach
+    void disableSequentialScans() {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                Arguments.of("StudentRepository.findPageAfter",
+                        query(test -> test.studentRepository.findPageAfter(100L, Limit.of(51))), "student_pkey"),
+                Arguments.of("StudentRepository.searchByNamePattern",
+                        query(test -> test.studentRepository.searchByNamePattern("otte", "%otte%", 20)), "student_name_trgm_index"),
+                Arguments.of("StudentRepository.searchByNameSimilarity",
+                        query(test -> test.studentRepository.searchByNameSimilarity("potter", 20)), "student_name_trgm_index"),
+                Arguments.of("FacultyRepository.searchByNameOrColor",
+                        query(test -> test.facultyRepository.searchByNameOrColor("red")), "faculty_color_trgm_index"),
+                Arguments.of("FacultyRepository.searchByPattern",
+                        query(test -> test.facultyRepository.searchByPattern("red", "%red%", 20)), "faculty_color_trgm_index"),
+                Arguments.of("FacultyRepository.searchBySimilarity",
+                        query(test -> test.facultyRepository.searchBySimilarity("gryffindor", 20)), "faculty_color_trgm_index"),
+                Arguments.of("FacultyRepository.findWithStudentsById",
+                        query(test -> test.facultyRepository.findWithStudentsById(1L)), "student_faculty_id_index"),
+                Arguments.of("FacultyRepository.findPageAfter",
+                        query(test -> test.facultyRepository.findPageAfter(100L, Limit.of(51))), "faculty_pkey"),
+                Arguments.of("AvatarRepository.findByStudentId",
+                        query(test -> test.avatarRepository.findByStudentId(1L)), "avatar_student_id_index"),
+                Arguments.of("AvatarRepository.existsByContentHash",
+                        query(test -> test.avatarRepository.existsByContentHash("abc")), "avatar_content_hash_index"),
+                Arguments.of("AvatarRepository.findMetadataByStudentIdIn",
+                        query(test -> test.avatarRepository.findMetadataByStudentIdIn(List.of(1L, 2L, 3L))), "avatar_student_id_index")
+        );
+    }
+
+    static Stream<Arguments> coveredQueries() {
+        return Stream.of(
+                Arguments.of("StudentRepository.findDtoByAge",
+                        query(test -> test.studentRepository.findDtoByAge(20))),
+                Arguments.of("StudentRepository.findDtoByAgeBetween",
+                        query(test -> test.studentRepository.findDtoByAgeBetween(18, 21)))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQueryUsesIndex(String query, Function<QueryPlanTest, Object> call, String index) {
+        assertThat(explain(capture(call))).as("plan of %s", query)
+                .contains(index)
+                .doesNotContain("Seq Scan");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("coveredQueries")
+    void coveredQueryUsesIndexOnlyScan(String query, Function<QueryPlanTest, Object> call) {
+        String sql = capture(call);
+        jdbcTemplate.execute("SET LOCAL enable_bitmapscan = off");
+
+        assertThat(explain(sql)).as("plan of %s", query)
+                .contains("Index Only Scan using student_age_covering_index");
+    }
+
+    private static Function<QueryPlanTest, Object> query(Function<QueryPlanTest, Object> call) {
+        return call;
+    }
+
+    private String capture(Function<QueryPlanTest, Object> call) {
+        SqlCapture.STATEMENTS.clear();
+        call.apply(this);
+        List<String> statements = SqlCapture.statements();
+        assertThat(statements).as("SQL issued by the repository call").hasSize(1);
+        return statements.get(0);
+    }
+
+    private String explain(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length());
+        int parameter = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+        jdbcTemplate.execute("PREPARE hot_query AS " + numbered);
+        try {
+            String arguments = parameter == 0 ? "" : Stream.generate(() -> "NULL").limit(parameter)
+                    .collect(Collectors.joining(", ", "(", ")"));
+            return jdbcTemplate.queryForList("EXPLAIN EXECUTE hot_query" + arguments, String.class).stream()
+                    .collect(Collectors.joining("\n"));
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE hot_query");
+        }
+    }
+
+    public static class SqlCapture implements StatementInspector {
+
+        private static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        static List<String> statements() {
+            synchronized (STATEMENTS) {
+                return List.copyOf(STATEMENTS);
+            }
+        }
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
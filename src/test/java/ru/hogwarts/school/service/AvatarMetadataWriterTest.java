@@ -0,0 +1,188 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AvatarMetadataWriterTest {
+
+    private final StudentRepository studentRepository = mock(StudentRepository.class);
+    private final AvatarRepository avatarRepository = mock(AvatarRepository.class);
+    private final AvatarStore avatarStore = mock(AvatarStore.class);
+    private final AvatarPreviewCache previewCache = mock(AvatarPreviewCache.class);
+    private final Map<Long, Avatar> avatars = new HashMap<>();
+    private final Set<Long> failingStudents = ConcurrentHashMap.newKeySet();
+    private final Set<Long> timingOutStudents = ConcurrentHashMap.newKeySet();
+
+    private AvatarMetadataWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new AvatarMetadataWriter(studentRepository, avatarRepository, avatarStore, previewCache,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        when(studentRepository.findByIdForUpdate(anyLong()))
+                .thenAnswer(invocation -> Optional.of(new Student(invocation.getArgument(0), "Harry", 17)));
+        when(avatarRepository.findByStudentId(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(avatars.get(invocation.<Long>getArgument(0))).map(this::copy));
+        when(avatarRepository.save(any(Avatar.class))).thenAnswer(invocation -> {
+            Avatar avatar = invocation.getArgument(0);
+            long studentId = avatar.getStudent().getId();
+            if (failingStudents.contains(studentId)) {
+                throw new DataIntegrityViolationException("avatar_content_hash_check");
+            }
+            if (timingOutStudents.contains(studentId)) {
+                throw new QueryTimeoutException("canceling statement due to statement timeout");
+            }
+            avatars.put(studentId, avatar);
+            return avatar;
+        });
+    }
+
+    @Test
+    void queuedWriteDoesNotOverwriteNewerSynchronousWriteTest() throws Exception {
+        AvatarMetadataWriter.AvatarMetadata queued = metadata(1, "queued", writer.nextSequence(1));
+        AvatarMetadataWriter.AvatarMetadata fallback = metadata(1, "fallback", writer.nextSequence(1));
+
+        writer.write(fallback);
+        AvatarMetadataWriter.BatchResult result = writer.writeBatch(List.of(queued));
+
+        assertThat(result.failed()).isEmpty();
+        assertThat(result.retry()).isEmpty();
+        assertThat(avatars.get(1L).getFilePath()).isEqualTo("fallback");
+        verify(avatarStore).release("queued");
+        verify(avatarStore).deleteIfUnreferenced(eq("queued"), any());
+        verify(avatarStore, never()).deleteIfUnreferenced(eq("fallback"), any());
+    }
+
+    @Test
+    void replayAppliesOnlyTheNewestUploadPerStudentTest() throws Exception {
+        AvatarMetadataWriter.AvatarMetadata older = metadata(1, "older", 10);
+        AvatarMetadataWriter.AvatarMetadata newer = metadata(1, "newer", 11);
+        writer.track(older);
+        writer.track(newer);
+
+        writer.writeBatch(List.of(older));
+        writer.writeBatch(List.of(newer));
+
+        assertThat(avatars.get(1L).getFilePath()).isEqualTo("newer");
+        verify(avatarStore).retain("older");
+        verify(avatarStore).retain("newer");
+        verify(avatarStore).deleteIfUnreferenced(eq("older"), any());
+        assertThat(writer.nextSequence(1)).isGreaterThan(11);
+    }
+
+    @Test
+    void replayOfAlreadyWrittenMarkerIsIdempotentTest() throws Exception {
+        AvatarMetadataWriter.AvatarMetadata metadata = metadata(1, "current", 10);
+        writer.track(metadata);
+        writer.writeBatch(List.of(metadata));
+
+        writer.track(metadata);
+        AvatarMetadataWriter.BatchResult result = writer.writeBatch(List.of(metadata));
+
+        assertThat(result.failed()).isEmpty();
+        assertThat(avatars.get(1L).getFilePath()).isEqualTo("current");
+        verify(avatarStore, never()).deleteIfUnreferenced(eq("current"), any());
+        verify(avatarStore, never()).delete(any());
+    }
+
+    @Test
+    void batchFailureFallsBackToRowsAndMarksBadRowFailedTest() throws Exception {
+        failingStudents.add(2L);
+        AvatarMetadataWriter.AvatarMetadata first = metadata(1, "first", writer.nextSequence(1));
+        AvatarMetadataWriter.AvatarMetadata bad = metadata(2, "bad", writer.nextSequence(2));
+        AvatarMetadataWriter.AvatarMetadata third = metadata(3, "third", writer.nextSequence(3));
+
+        AvatarMetadataWriter.BatchResult result = writer.writeBatch(List.of(first, bad, third));
+
+        assertThat(result.failed()).containsExactly(bad);
+        assertThat(result.retry()).isEmpty();
+        assertThat(avatars.get(1L).getFilePath()).isEqualTo("first");
+        assertThat(avatars.get(3L).getFilePath()).isEqualTo("third");
+        assertThat(avatars).doesNotContainKey(2L);
+        verify(avatarStore).deleteIfUnreferenced(eq("bad"), any());
+    }
+
+    @Test
+    void transientBatchFailureIsReturnedForRetryWithoutDiscardingFilesTest() throws Exception {
+        timingOutStudents.add(2L);
+        AvatarMetadataWriter.AvatarMetadata first = metadata(1, "first", writer.nextSequence(1));
+        AvatarMetadataWriter.AvatarMetadata slow = metadata(2, "slow", writer.nextSequence(2));
+
+        AvatarMetadataWriter.BatchResult result = writer.writeBatch(List.of(first, slow));
+
+        assertThat(result.failed()).isEmpty();
+        assertThat(result.retry()).containsExactly(first, slow);
+        verify(avatarStore, never()).release(any());
+        verify(avatarStore, never()).deleteIfUnreferenced(any(), any());
+
+        timingOutStudents.clear();
+        assertThat(writer.writeBatch(result.retry()).retry()).isEmpty();
+        assertThat(avatars.get(2L).getFilePath()).isEqualTo("slow");
+    }
+
+    @Test
+    void transientRowFailureIsRetriedWhileBadRowFailsTest() {
+        failingStudents.add(1L);
+        timingOutStudents.add(2L);
+        AvatarMetadataWriter.AvatarMetadata bad = metadata(1, "bad", writer.nextSequence(1));
+        AvatarMetadataWriter.AvatarMetadata slow = metadata(2, "slow", writer.nextSequence(2));
+        AvatarMetadataWriter.AvatarMetadata good = metadata(3, "good", writer.nextSequence(3));
+
+        AvatarMetadataWriter.BatchResult result = writer.writeBatch(List.of(bad, slow, good));
+
+        assertThat(result.failed()).containsExactly(bad);
+        assertThat(result.retry()).containsExactly(slow);
+        assertThat(avatars.get(3L).getFilePath()).isEqualTo("good");
+    }
+
+    @Test
+    void synchronousWriteFailureDiscardsFileTest() throws Exception {
+        failingStudents.add(1L);
+        AvatarMetadataWriter.AvatarMetadata metadata = metadata(1, "bad", writer.nextSequence(1));
+
+        assertThatThrownBy(() -> writer.write(metadata)).isInstanceOf(DataIntegrityViolationException.class);
+
+        verify(avatarStore).release("bad");
+        verify(avatarStore).deleteIfUnreferenced(eq("bad"), any());
+    }
+
+    private AvatarMetadataWriter.AvatarMetadata metadata(long studentId, String location, long sequence) {
+        return new AvatarMetadataWriter.AvatarMetadata(studentId, location, location + "-hash", 10, "image/png", sequence);
+    }
+
+    private Avatar copy(Avatar avatar) {
+        Avatar copy = new Avatar();
+        copy.setStudent(avatar.getStudent());
+        copy.setFilePath(avatar.getFilePath());
+        copy.setFileSize(avatar.getFileSize());
+        copy.setMediaType(avatar.getMediaType());
+        copy.setContentHash(avatar.getContentHash());
+        return copy;
+    }
+}
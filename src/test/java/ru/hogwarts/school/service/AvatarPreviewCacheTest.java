@@ -0,0 +1,111 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AvatarPreviewCacheTest {
+
+    private final AvatarPreviewCache cache = new AvatarPreviewCache(DataSize.ofBytes(10), Duration.ofMinutes(10));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void secondLookupIsAHitTest() {
+        AvatarPreviewCache.AvatarPreview first = cache.get(1L, id -> preview(1));
+        AvatarPreviewCache.AvatarPreview second = cache.get(1L, id -> preview(2));
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidatedEntryIsReloadedTest() {
+        cache.get(1L, id -> preview(1));
+        cache.invalidate(1L);
+
+        assertThat(cache.get(1L, id -> preview(2)).data()).containsExactly(2);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void failedLoadIsNotCachedTest() {
+        assertThatThrownBy(() -> cache.get(1L, id -> {
+            throw new IllegalStateException("disk unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.get(1L, id -> preview(3)).data()).containsExactly(3);
+    }
+
+    @Test
+    void invalidationDuringLoadIsNotOverwrittenByThatLoadTest() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<AvatarPreviewCache.AvatarPreview> staleLoad = executor.submit(() -> cache.get(1L, id -> {
+                loading.countDown();
+                await(release);
+                return preview(1);
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            cache.invalidate(1L);
+            release.countDown();
+            assertThat(staleLoad.get(5, TimeUnit.SECONDS).data()).containsExactly(1);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertThat(cache.get(1L, id -> preview(2)).data()).containsExactly(2);
+        assertThat(cache.get(1L, id -> preview(3)).data()).containsExactly(2);
+    }
+
+    @Test
+    void concurrentLookupsShareOneLoadTest() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<AvatarPreviewCache.AvatarPreview> leader = executor.submit(() -> cache.get(1L, id -> {
+                loading.countDown();
+                await(release);
+                return preview(1);
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<AvatarPreviewCache.AvatarPreview> follower = executor.submit(() -> cache.get(1L, id -> preview(2)));
+
+            release.countDown();
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private AvatarPreviewCache.AvatarPreview preview(int value) {
+        loads.incrementAndGet();
+        return new AvatarPreviewCache.AvatarPreview("image/png", new byte[]{(byte) value});
+    }
+}
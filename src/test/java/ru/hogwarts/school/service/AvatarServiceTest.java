@@ -0,0 +1,137 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AvatarServiceTest {
+
+    private final AvatarRepository avatarRepository = mock(AvatarRepository.class);
+    private final StudentRepository studentRepository = mock(StudentRepository.class);
+    private final AvatarStore avatarStore = mock(AvatarStore.class);
+    private final AvatarPreviewCache previewCache = new AvatarPreviewCache(DataSize.ofMegabytes(1), Duration.ofMinutes(10));
+    private final AvatarThumbnailService thumbnailService = mock(AvatarThumbnailService.class);
+    private final AvatarMetadataWriter metadataWriter = new AvatarMetadataWriter(studentRepository, avatarRepository,
+            avatarStore, previewCache, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    private final AvatarWriteBehind writeBehind = new AvatarWriteBehind(metadataWriter, new ObjectMapper(), "avatars",
+            false, 10, 10, Duration.ofMillis(50), Duration.ofMillis(200));
+    private final Map<Long, Avatar> avatars = new ConcurrentHashMap<>();
+
+    private final AvatarService avatarService = new AvatarService(avatarRepository, studentRepository, avatarStore,
+            previewCache, thumbnailService, metadataWriter, writeBehind, new AvatarMetrics(), new SingleFlightRegistry());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(studentRepository.existsById(1L)).thenReturn(true);
+        when(studentRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(new Student(1L, "Гарри", 17)));
+        when(avatarRepository.findByStudentId(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(avatars.get(invocation.<Long>getArgument(0))));
+        when(avatarRepository.save(any(Avatar.class))).thenAnswer(invocation -> {
+            Avatar avatar = invocation.getArgument(0);
+            avatars.put(avatar.getStudent().getId(), avatar);
+            return avatar;
+        });
+        when(avatarStore.read("old.png")).thenReturn(new byte[]{1});
+        when(avatarStore.read("new.png")).thenReturn(new byte[]{2});
+        when(avatarStore.store(any(), anyString()))
+                .thenReturn(new AvatarStore.StoredAvatar("new.png", "new-hash", 1, "image/png"));
+
+        Avatar avatar = new Avatar(1L, "old.png", "image/png", 1, new Student(1L, "Гарри", 17));
+        avatar.setContentHash("old-hash");
+        avatars.put(1L, avatar);
+    }
+
+    @Test
+    void previewIsServedFromCacheTest() throws Exception {
+        AvatarPreviewCache.AvatarPreview first = avatarService.getAvatarPreview(1L);
+        AvatarPreviewCache.AvatarPreview second = avatarService.getAvatarPreview(1L);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.data()).containsExactly(1);
+        assertThat(first.mediaType()).isEqualTo("image/png");
+        verify(avatarStore, times(1)).read("old.png");
+        assertThat(avatarService.getPreviewCacheStats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void uploadInvalidatesCachedPreviewTest() throws Exception {
+        assertThat(avatarService.getAvatarPreview(1L).data()).containsExactly(1);
+
+        avatarService.uploadAvatar(1L, new MockMultipartFile("avatar", "avatar.png", "image/png", new byte[]{2}));
+
+        assertThat(avatarService.getAvatarPreview(1L).data()).containsExactly(2);
+        verify(avatarStore).deleteIfUnreferenced(any(), any());
+    }
+
+    @Test
+    void uploadDuringPreviewLoadDoesNotLeaveStalePreviewCachedTest() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(avatarStore.read("old.png")).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new byte[]{1};
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<AvatarPreviewCache.AvatarPreview> staleLoad = executor.submit(() -> avatarService.getAvatarPreview(1L));
+            assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            avatarService.uploadAvatar(1L, new MockMultipartFile("avatar", "avatar.png", "image/png", new byte[]{2}));
+            assertThat(avatarService.getAvatarPreview(1L).data()).containsExactly(2);
+
+            release.countDown();
+            staleLoad.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertThat(avatarService.getAvatarPreview(1L).data()).containsExactly(2);
+    }
+
+    @Test
+    void uploadAvatarForUnknownStudentIsRejectedBeforeStoringTest() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("avatar", "avatar.png", "image/png", new byte[]{1, 2, 3});
+
+        assertThatThrownBy(() -> avatarService.uploadAvatar(42L, file))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+
+        verify(avatarStore, never()).store(any(), any());
+        verifyNoInteractions(thumbnailService);
+    }
+}
@@ -0,0 +1,164 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AvatarThumbnailServiceTest {
+
+    @TempDir
+    private Path root;
+
+    private AvatarThumbnailService thumbnailService;
+
+    @AfterEach
+    void shutdown() {
+        if (thumbnailService != null) {
+            thumbnailService.shutdown();
+        }
+    }
+
+    @Test
+    void thumbnailsKeepAspectRatioAndNeverUpscaleTest() throws Exception {
+        FileSystemAvatarStore store = store();
+        thumbnailService = new AvatarThumbnailService(store, List.of(64, 256), 25_000_000, 1, 10, false);
+        String wide = store.store(png(400, 200), "png").location();
+        String small = store.store(png(32, 16), "png").location();
+
+        thumbnailService.generateThumbnails(wide);
+        thumbnailService.generateThumbnails(small);
+
+        assertThat(dimensions(thumbnailService.findThumbnail(wide, 64))).containsExactly(64, 32);
+        assertThat(dimensions(thumbnailService.findThumbnail(wide, 256))).containsExactly(256, 128);
+        assertThat(dimensions(thumbnailService.findThumbnail(small, 64))).containsExactly(32, 16);
+    }
+
+    @Test
+    void imagesAboveMaxPixelsAreRejectedBeforeDecodingTest() throws Exception {
+        FileSystemAvatarStore store = store();
+        thumbnailService = new AvatarThumbnailService(store, List.of(64), 100, 1, 10, false);
+        String large = store.store(png(20, 20), "png").location();
+        String tiny = store.store(png(10, 10), "png").location();
+
+        thumbnailService.generateThumbnails(large);
+        thumbnailService.generateThumbnails(tiny);
+
+        assertThat(thumbnailService.findThumbnail(large, 64)).isEmpty();
+        assertThat(thumbnailService.findThumbnail(tiny, 64)).isPresent();
+    }
+
+    @Test
+    void unreadableAvatarIsSkippedTest() throws Exception {
+        FileSystemAvatarStore store = store();
+        thumbnailService = new AvatarThumbnailService(store, List.of(64), 25_000_000, 1, 10, false);
+        String text = store.store(new ByteArrayInputStream("not an image".getBytes()), "txt").location();
+
+        thumbnailService.generateThumbnails(text);
+
+        assertThat(thumbnailService.findThumbnail(text, 64)).isEmpty();
+    }
+
+    @Test
+    void unsupportedSizeIsRejectedTest() {
+        thumbnailService = new AvatarThumbnailService(mock(AvatarStore.class), List.of(64), 25_000_000, 1, 10, false);
+
+        assertThatThrownBy(() -> thumbnailService.findThumbnail("a.png", 128)).isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void queuedAndRunningJobsAreNotScheduledTwiceTest() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AvatarStore store = blockingStore(running, release);
+        thumbnailService = new AvatarThumbnailService(store, List.of(64), 25_000_000, 1, 10, false);
+
+        thumbnailService.scheduleThumbnails("a.png");
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        thumbnailService.scheduleThumbnails("a.png");
+        thumbnailService.scheduleThumbnails("b.png");
+        thumbnailService.scheduleThumbnails("b.png");
+        release.countDown();
+
+        verify(store, timeout(5000)).load("b.png");
+        verify(store, after(500).times(1)).load("b.png");
+        verify(store, times(1)).load("a.png");
+    }
+
+    @Test
+    void saturatedPoolSkipsJobAndAllowsLaterRetryTest() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AvatarStore store = blockingStore(running, release);
+        thumbnailService = new AvatarThumbnailService(store, List.of(64), 25_000_000, 1, 1, false);
+
+        thumbnailService.scheduleThumbnails("a.png");
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        thumbnailService.scheduleThumbnails("b.png");
+        thumbnailService.scheduleThumbnails("c.png");
+        release.countDown();
+        verify(store, timeout(5000)).load("b.png");
+        verify(store, never()).load("c.png");
+
+        thumbnailService.scheduleThumbnails("c.png");
+        verify(store, timeout(5000)).load("c.png");
+    }
+
+    private FileSystemAvatarStore store() {
+        return new FileSystemAvatarStore(root.toString(), DataSize.ofKilobytes(64), 1);
+    }
+
+    private AvatarStore blockingStore(CountDownLatch running, CountDownLatch release) throws Exception {
+        AvatarStore store = mock(AvatarStore.class);
+        byte[] image = png(8, 8).readAllBytes();
+        when(store.load(anyString())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0).equals("a.png")) {
+                running.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return new ByteArrayResource(image);
+        });
+        when(store.loadVariant(anyString(), anyString())).thenReturn(Optional.empty());
+        return store;
+    }
+
+    private static InputStream png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    private static int[] dimensions(Optional<Resource> thumbnail) throws Exception {
+        assertThat(thumbnail).isPresent();
+        try (InputStream in = thumbnail.get().getInputStream()) {
+            BufferedImage image = ImageIO.read(in);
+            return new int[]{image.getWidth(), image.getHeight()};
+        }
+    }
+}
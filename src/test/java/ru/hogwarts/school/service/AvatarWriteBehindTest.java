@@ -0,0 +1,225 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AvatarWriteBehindTest {
+
+    private static final AvatarMetadataWriter.BatchResult WRITTEN = new AvatarMetadataWriter.BatchResult(List.of(), List.of());
+
+    private final AvatarMetadataWriter metadataWriter = mock(AvatarMetadataWriter.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    private Path avatarsDir;
+
+    @Test
+    void crashRecoveryReplaysPendingMarkersInSequenceOrderTest() throws Exception {
+        AvatarMetadataWriter.AvatarMetadata first = metadata(1, 100);
+        AvatarMetadataWriter.AvatarMetadata second = metadata(2, 101);
+        AvatarMetadataWriter.AvatarMetadata third = metadata(1, 102);
+        prepareMarker(third);
+        prepareMarker(first);
+        prepareMarker(second);
+        Files.writeString(pendingDir().resolve(String.format("%020d-%d.json", 103, 3)), "{not json");
+        when(metadataWriter.writeBatch(anyList())).thenReturn(WRITTEN);
+
+        AvatarWriteBehind writeBehind = writeBehind(false, 10, 10);
+        writeBehind.start();
+        writeBehind.shutdown();
+
+        InOrder order = inOrder(metadataWriter);
+        order.verify(metadataWriter).track(first);
+        order.verify(metadataWriter).track(second);
+        order.verify(metadataWriter).track(third);
+        order.verify(metadataWriter).writeBatch(List.of(first, second, third));
+        assertThat(markers()).isEmpty();
+    }
+
+    @Test
+    void recoveryReplaysInBatchesTest() throws Exception {
+        AvatarMetadataWriter.AvatarMetadata first = metadata(1, 100);
+        AvatarMetadataWriter.AvatarMetadata second = metadata(2, 101);
+        AvatarMetadataWriter.AvatarMetadata third = metadata(3, 102);
+        prepareMarker(first);
+        prepareMarker(second);
+        prepareMarker(third);
+        when(metadataWriter.writeBatch(anyList())).thenReturn(WRITTEN);
+
+        AvatarWriteBehind writeBehind = writeBehind(true, 10, 2);
+        writeBehind.start();
+        writeBehind.shutdown();
+
+        InOrder order = inOrder(metadataWriter);
+        order.verify(metadataWriter).writeBatch(List.of(first, second));
+        order.verify(metadataWriter).writeBatch(List.of(third));
+        assertThat(markers()).isEmpty();
+    }
+
+    @Test
+    void queueFullFallsBackToSynchronousWriteTest() throws Exception {
+        AvatarMetadataWriter.AvatarMetadata queued = metadata(1, 100);
+        AvatarMetadataWriter.AvatarMetadata fallback = metadata(1, 101);
+        AvatarWriteBehind writeBehind = writeBehind(true, 1, 10);
+
+        writeBehind.write(queued);
+        writeBehind.write(fallback);
+
+        verify(metadataWriter, never()).write(queued);
+        verify(metadataWriter).write(fallback);
+        assertThat(writeBehind.getQueued()).isEqualTo(1);
+        assertThat(markers()).containsExactly(markerName(queued));
+    }
+
+    @Test
+    void disabledQueueWritesSynchronouslyWithoutMarkersTest() throws Exception {
+        AvatarMetadataWriter.AvatarMetadata metadata = metadata(1, 100);
+        AvatarWriteBehind writeBehind = writeBehind(false, 10, 10);
+
+        writeBehind.write(metadata);
+
+        verify(metadataWriter).write(metadata);
+        assertThat(Files.exists(pendingDir())).isFalse();
+    }
+
+    @Test
+    void failedRowsAreDroppedAndTransientRowsRetriedTest() throws Exception {
+        AvatarMetadataWriter.AvatarMetadata bad = metadata(1, 100);
+        AvatarMetadataWriter.AvatarMetadata slow = metadata(2, 101);
+        AvatarMetadataWriter.AvatarMetadata good = metadata(3, 102);
+        prepareMarker(bad);
+        prepareMarker(slow);
+        prepareMarker(good);
+        CountDownLatch retried = new CountDownLatch(1);
+        when(metadataWriter.writeBatch(anyList()))
+                .thenReturn(new AvatarMetadataWriter.BatchResult(List.of(bad), List.of(slow)))
+                .thenAnswer(invocation -> {
+                    retried.countDown();
+                    return WRITTEN;
+                });
+
+        AvatarWriteBehind writeBehind = writeBehind(true, 10, 10);
+        writeBehind.start();
+        assertThat(retried.await(5, TimeUnit.SECONDS)).isTrue();
+        writeBehind.shutdown();
+
+        InOrder order = inOrder(metadataWriter);
+        order.verify(metadataWriter).writeBatch(List.of(bad, slow, good));
+        order.verify(metadataWriter).writeBatch(List.of(slow));
+        assertThat(markers()).isEmpty();
+    }
+
+    @Test
+    void transientFailureKeepsMarkerUntilRetrySucceedsTest() throws Exception {
+        AvatarMetadataWriter.AvatarMetadata metadata = metadata(1, 100);
+        CountDownLatch failedOnce = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(metadataWriter.writeBatch(anyList()))
+                .thenAnswer(invocation -> {
+                    failedOnce.countDown();
+                    return new AvatarMetadataWriter.BatchResult(List.of(), List.of(metadata));
+                })
+                .thenAnswer(invocation -> {
+                    release.await();
+                    return WRITTEN;
+                });
+
+        AvatarWriteBehind writeBehind = writeBehind(true, 10, 10);
+        writeBehind.start();
+        writeBehind.write(metadata);
+        assertThat(failedOnce.await(5, TimeUnit.SECONDS)).isTrue();
+
+        verify(metadataWriter, timeout(5000).times(2)).writeBatch(anyList());
+        assertThat(markers()).containsExactly(markerName(metadata));
+
+        release.countDown();
+        writeBehind.shutdown();
+        assertThat(markers()).isEmpty();
+    }
+
+    @Test
+    void shutdownDrainsQueuedWritesTest() throws Exception {
+        AvatarMetadataWriter.AvatarMetadata first = metadata(1, 100);
+        AvatarMetadataWriter.AvatarMetadata second = metadata(2, 101);
+        AvatarMetadataWriter.AvatarMetadata third = metadata(3, 102);
+        when(metadataWriter.writeBatch(anyList())).thenReturn(WRITTEN);
+
+        AvatarWriteBehind writeBehind = writeBehind(true, 10, 10);
+        writeBehind.start();
+        writeBehind.write(first);
+        writeBehind.write(second);
+        writeBehind.write(third);
+        writeBehind.shutdown();
+
+        verify(metadataWriter, never()).write(any());
+        assertThat(writeBehind.getQueued()).isZero();
+        assertThat(markers()).isEmpty();
+    }
+
+    @Test
+    void writesAfterShutdownFallBackToSynchronousWriteTest() throws Exception {
+        AvatarMetadataWriter.AvatarMetadata metadata = metadata(1, 100);
+        AvatarWriteBehind writeBehind = writeBehind(true, 10, 10);
+        writeBehind.start();
+        writeBehind.shutdown();
+
+        writeBehind.write(metadata);
+
+        verify(metadataWriter).write(metadata);
+        verify(metadataWriter, times(0)).writeBatch(anyList());
+        assertThat(markers()).isEmpty();
+    }
+
+    private AvatarWriteBehind writeBehind(boolean enabled, int queueCapacity, int batchSize) {
+        return new AvatarWriteBehind(metadataWriter, objectMapper, avatarsDir.toString(), enabled, queueCapacity,
+                batchSize, Duration.ofMillis(50), Duration.ofMillis(200));
+    }
+
+    private AvatarMetadataWriter.AvatarMetadata metadata(long studentId, long sequence) {
+        return new AvatarMetadataWriter.AvatarMetadata(studentId, avatarsDir.resolve("ab").resolve(sequence + ".png").toString(),
+                "hash-" + sequence, 10, "image/png", sequence);
+    }
+
+    private void prepareMarker(AvatarMetadataWriter.AvatarMetadata metadata) throws Exception {
+        Files.createDirectories(pendingDir());
+        Files.write(pendingDir().resolve(markerName(metadata)), objectMapper.writeValueAsBytes(metadata));
+    }
+
+    private String markerName(AvatarMetadataWriter.AvatarMetadata metadata) {
+        return String.format("%020d-%d.json", metadata.sequence(), metadata.studentId());
+    }
+
+    private Path pendingDir() {
+        return avatarsDir.resolve("pending");
+    }
+
+    private List<String> markers() throws Exception {
+        if (!Files.isDirectory(pendingDir())) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(pendingDir())) {
+            return files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+}
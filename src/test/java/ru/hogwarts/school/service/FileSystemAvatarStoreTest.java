@@ -0,0 +1,162 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSystemAvatarStoreTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3, 4};
+
+    @TempDir
+    private Path root;
+
+    private FileSystemAvatarStore store() {
+        return new FileSystemAvatarStore(root.toString(), DataSize.ofKilobytes(64), 4);
+    }
+
+    @Test
+    void identicalBytesAreStoredOnceTest() throws Exception {
+        FileSystemAvatarStore store = store();
+
+        AvatarStore.StoredAvatar first = store.store(new ByteArrayInputStream(PNG), "PNG");
+        AvatarStore.StoredAvatar second = store.store(new ByteArrayInputStream(PNG), "png");
+
+        assertThat(second.location()).isEqualTo(first.location());
+        assertThat(first.contentHash()).isEqualTo(sha256(PNG));
+        assertThat(first.size()).isEqualTo(PNG.length);
+        assertThat(first.mediaType()).isEqualTo("image/png");
+        assertThat(Path.of(first.location())).isEqualTo(root.resolve(first.contentHash().substring(0, 2))
+                .resolve(first.contentHash() + ".png"));
+        assertThat(files()).containsExactly(Path.of(first.location()));
+        assertThat(store.read(first.location())).isEqualTo(PNG);
+    }
+
+    @Test
+    void pinnedFileIsNotDeletedUntilEveryPinIsReleasedTest() throws Exception {
+        FileSystemAvatarStore store = store();
+        String location = store.store(new ByteArrayInputStream(PNG), "png").location();
+        store.store(new ByteArrayInputStream(PNG), "png");
+
+        assertThat(store.deleteIfUnreferenced(location, () -> false)).isFalse();
+        store.release(location);
+        assertThat(store.deleteIfUnreferenced(location, () -> false)).isFalse();
+        assertThat(Path.of(location)).exists();
+
+        store.release(location);
+        assertThat(store.deleteIfUnreferenced(location, () -> false)).isTrue();
+        assertThat(Path.of(location)).doesNotExist();
+    }
+
+    @Test
+    void referencedFileIsNotDeletedTest() throws Exception {
+        FileSystemAvatarStore store = store();
+        String location = store.store(new ByteArrayInputStream(PNG), "png").location();
+        store.release(location);
+
+        assertThat(store.deleteIfUnreferenced(location, () -> true)).isFalse();
+        assertThat(Path.of(location)).exists();
+    }
+
+    @Test
+    void retainedFileSurvivesUntilReleasedTest() throws Exception {
+        FileSystemAvatarStore store = store();
+        String location = store.store(new ByteArrayInputStream(PNG), "png").location();
+        store.release(location);
+        store.retain(location);
+
+        assertThat(store.deleteIfUnreferenced(location, () -> false)).isFalse();
+        store.release(location);
+        assertThat(store.deleteIfUnreferenced(location, () -> false)).isTrue();
+    }
+
+    @Test
+    void unpinnedUnreferencedFileIsDeletedWithVariantsTest() throws Exception {
+        FileSystemAvatarStore store = store();
+        String location = store.store(new ByteArrayInputStream(PNG), "png").location();
+        store.storeVariant(location, "64", new byte[]{9});
+        assertThat(store.loadVariant(location, "64")).isPresent();
+        store.release(location);
+
+        assertThat(store.deleteIfUnreferenced(location, () -> false)).isTrue();
+
+        assertThat(files()).isEmpty();
+        assertThat(store.loadVariant(location, "64")).isEmpty();
+    }
+
+    @Test
+    void concurrentStoresOfSameBytesLeaveOneFileAndNoTempFilesTest() throws Exception {
+        FileSystemAvatarStore store = store();
+        int uploads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(uploads);
+        List<Future<AvatarStore.StoredAvatar>> results = new ArrayList<>();
+        try {
+            Callable<AvatarStore.StoredAvatar> upload = () -> store.store(new ByteArrayInputStream(PNG), "png");
+            for (int i = 0; i < uploads; i++) {
+                results.add(executor.submit(upload));
+            }
+            for (Future<AvatarStore.StoredAvatar> result : results) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String location = results.get(0).get().location();
+        assertThat(files()).containsExactly(Path.of(location));
+        for (int i = 0; i < uploads - 1; i++) {
+            store.release(location);
+            assertThat(store.deleteIfUnreferenced(location, () -> false)).isFalse();
+        }
+        store.release(location);
+        assertThat(store.deleteIfUnreferenced(location, () -> false)).isTrue();
+    }
+
+    @Test
+    void uploadsLargerThanPooledBufferAreCopiedExactlyTest() throws Exception {
+        FileSystemAvatarStore store = new FileSystemAvatarStore(root.toString(), DataSize.ofBytes(16), 1);
+        Random random = new Random(7);
+        for (int size : new int[]{1000, 17, 16, 0}) {
+            byte[] content = new byte[size];
+            random.nextBytes(content);
+            if (size > 0) {
+                System.arraycopy(PNG, 0, content, 0, Math.min(PNG.length, size));
+            }
+
+            AvatarStore.StoredAvatar stored = store.store(new ByteArrayInputStream(content), "png");
+
+            assertThat(stored.size()).isEqualTo(size);
+            assertThat(stored.contentHash()).isEqualTo(sha256(content));
+            assertThat(stored.mediaType()).isEqualTo(size > 0 ? "image/png" : null);
+            assertThat(store.read(stored.location())).isEqualTo(content);
+        }
+        assertThat(files()).hasSize(4);
+    }
+
+    private List<Path> files() throws Exception {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
@@ -0,0 +1,109 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import ru.hogwarts.school.DTO.StudentImportReport;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "students.import.batch-size=10"
+})
+@Import(StudentImportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StudentImportServiceTest {
+
+    @Autowired
+    private StudentImportService studentImportService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private StudentStatistics studentStatistics;
+
+    @MockBean
+    private StudentNameIndex studentNameIndex;
+
+    @BeforeEach
+    void addAgeConstraint() {
+        jdbcTemplate.execute("ALTER TABLE student ADD CONSTRAINT student_age_limit CHECK (age < 120)");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("ALTER TABLE student DROP CONSTRAINT student_age_limit");
+        studentRepository.deleteAll();
+    }
+
+    @Test
+    void importKeepsValidRowsWhenOneRowViolatesConstraintTest() throws Exception {
+        String csv = """
+                name,age
+                Harry,17
+                Ron,200
+                Hermione,18
+                """;
+
+        StudentImportReport report = studentImportService.importStudents(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), RosterFormat.CSV);
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getFailures()).singleElement()
+                .satisfies(failure -> assertThat(failure.getLine()).isEqualTo(3));
+        assertThat(studentRepository.findAll()).extracting(Student::getName)
+                .containsExactlyInAnyOrder("Harry", "Hermione");
+        verify(studentStatistics, times(2)).onAdded(anyInt());
+        verify(studentNameIndex, never()).onSaved(anyLong(), eq("Ron"), anyInt());
+    }
+
+    @Test
+    void importWithInvalidHeaderIsRejectedTest() {
+        String csv = """
+                full_name,years
+                Harry,17
+                Hermione,18
+                """;
+
+        assertThatThrownBy(() -> studentImportService.importStudents(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), RosterFormat.CSV))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+
+        assertThat(studentRepository.count()).isZero();
+        verify(studentNameIndex, never()).onSaved(anyLong(), anyString(), anyInt());
+    }
+}
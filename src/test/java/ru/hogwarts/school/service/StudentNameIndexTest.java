@@ -0,0 +1,57 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.Test;
+import ru.hogwarts.school.DTO.StudentDTO;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StudentNameIndexTest {
+
+    private final StudentRepository studentRepository = mock(StudentRepository.class);
+    private final StudentNameIndex index = new StudentNameIndex(studentRepository);
+
+    @Test
+    void normalizeFoldsCaseAccentsAndCyrillicTest() {
+        assertThat(StudentNameIndex.normalize(" Алиса ")).isEqualTo("alisa");
+        assertThat(StudentNameIndex.normalize("ЁЖИК")).isEqualTo("ezhik");
+        assertThat(StudentNameIndex.normalize("Щука")).isEqualTo("shchuka");
+        assertThat(StudentNameIndex.normalize("Йорк")).isEqualTo("iork");
+        assertThat(StudentNameIndex.normalize("Élodie")).isEqualTo("elodie");
+        assertThat(StudentNameIndex.normalize("ﬁona")).isEqualTo("fiona");
+        assertThat(StudentNameIndex.normalize(null)).isEmpty();
+    }
+
+    @Test
+    void prefixLookupIsScriptInsensitiveTest() {
+        when(studentRepository.findAllNames()).thenReturn(List.of(
+                new StudentDTO(1L, "Алиса", 18),
+                new StudentDTO(2L, "Albus", 20),
+                new StudentDTO(3L, "Жанна", 19),
+                new StudentDTO(4L, "Zhenya", 22),
+                new StudentDTO(5L, "Борис", 21)));
+        index.reload();
+
+        assertThat(index.findByPrefix("A", 10)).extracting(StudentDTO::getName).containsExactly("Albus", "Алиса");
+        assertThat(index.findByPrefix("а", 10)).extracting(StudentDTO::getName).containsExactly("Albus", "Алиса");
+        assertThat(index.findByPrefix("Ali", 10)).extracting(StudentDTO::getName).containsExactly("Алиса");
+        assertThat(index.findByPrefix("Ж", 10)).extracting(StudentDTO::getName).containsExactly("Жанна", "Zhenya");
+        assertThat(index.findByPrefix("zh", 1)).extracting(StudentDTO::getName).containsExactly("Жанна");
+        assertThat(index.findByPrefix("Bor", 10)).extracting(StudentDTO::getName).containsExactly("Борис");
+    }
+
+    @Test
+    void savedNamesAreFoldedIncrementallyTest() {
+        index.onSaved(1L, "Ёлка", 17);
+        index.onSaved(1L, "Yolanda", 17);
+        index.onSaved(2L, "Эмма", 18);
+
+        assertThat(index.findByPrefix("Ё", 10)).extracting(StudentDTO::getName).containsExactly("Эмма");
+        assertThat(index.findByPrefix("yo", 10)).extracting(StudentDTO::getName).containsExactly("Yolanda");
+        assertThat(index.size()).isEqualTo(2);
+    }
+}